@@ -0,0 +1,72 @@
+package com.example.restcalls.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.example.restcalls.metrics.EventMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Wiring shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Raises the root log level to WARN. Several hot paths log at INFO per call, which would otherwise
+     * turn every benchmark into a console benchmark.
+     */
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    /**
+     * Heap in use after a few full collections, for measuring what a data structure retains. Only comparable
+     * between two calls in the same quiet JVM.
+     */
+    static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static EventMetrics eventMetrics() {
+        return new EventMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * A template whose sends complete immediately without a broker, so that only our side of publishing is measured.
+     */
+    static KafkaTemplate<String, byte[]> acknowledgingKafkaTemplate() {
+        return acknowledgingKafkaTemplate((key, data) -> {
+        });
+    }
+
+    /**
+     * Like {@link #acknowledgingKafkaTemplate()}, handing every record to {@code onSend} first.
+     */
+    static KafkaTemplate<String, byte[]> acknowledgingKafkaTemplate(BiConsumer<String, byte[]> onSend) {
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of())) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] data) {
+                onSend.accept(key, data);
+                RecordMetadata metadata = new RecordMetadata(new TopicPartition(topic, 0), 0, 0, 0, 0, 0);
+                return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(topic, key, data), metadata));
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.service.EventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status updates and live-event scans on {@link EventService} at different numbers of known events, half of
+ * them live. The {@code readWrite} group runs three writers against one thread scanning the live events the
+ * way a scheduler tick does.
+ * <p>
+ * Setup also prints the heap the service retains once populated, measured as the heap in use after a full
+ * collection before and after populating it. The event ids are allocated beforehand, so the figure covers
+ * only the service's own structure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int events;
+
+    private EventService eventService;
+    private String[] eventIds;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        eventService = new EventService();
+        eventIds = new String[events];
+        for (int i = 0; i < events; i++) {
+            eventIds[i] = "event-" + i;
+        }
+        long before = BenchmarkSupport.usedHeapAfterGc();
+        for (int i = 0; i < events; i++) {
+            eventService.updateEventStatus(eventIds[i], i % 2 == 0);
+        }
+        long retained = BenchmarkSupport.usedHeapAfterGc() - before;
+        System.out.printf("EventService retains %,d bytes for %,d events (%,d live), %.1f bytes per live event%n",
+                retained, events, eventService.getLiveEventCount(), (double) retained / eventService.getLiveEventCount());
+    }
+
+    private void randomUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        eventService.updateEventStatus(eventIds[random.nextInt(events)], random.nextBoolean());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateEventStatus() {
+        randomUpdate();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public void readWrite_update() {
+        randomUpdate();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWrite_scanLiveEvents(Blackhole blackhole) {
+        for (Map.Entry<String, Boolean> entry : eventService.getLiveEvents().entrySet()) {
+            blackhole.consume(entry.getKey());
+        }
+    }
+}
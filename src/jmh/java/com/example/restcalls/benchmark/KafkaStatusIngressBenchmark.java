@@ -0,0 +1,165 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.RestCallsApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Status updates per second into a running application, end to end: posted one per request to
+ * {@code /events/status}, posted as one {@code /events/status/batch} request, or produced to the status topic
+ * of an embedded Kafka broker and consumed by the Kafka ingress. A Kafka invocation ends once the ingress has
+ * applied all of its records, so producing, consuming and committing are all part of the measurement.
+ * <p>
+ * Every invocation flips the status of the same events, so each update is a change the ingress applies.
+ * Broker, application and client share one JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KafkaStatusIngressBenchmark {
+
+    private static final int UPDATES = 1000;
+    private static final String TOPIC = "event_status_updates";
+
+    private EmbeddedKafkaBroker broker;
+    private ConfigurableApplicationContext context;
+    private DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private Counter kafkaStatusUpdates;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private URI statusUrl;
+    private URI statusBatchUrl;
+    private byte[][][] singleBodies;
+    private byte[][] batchBodies;
+    private boolean live;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        broker = new EmbeddedKafkaZKBroker(1, false, 1, TOPIC);
+        broker.afterPropertiesSet();
+
+        context = new SpringApplicationBuilder(RestCallsApplication.class)
+                .initializers(context -> context.getBeanFactory().registerSingleton("kafkaTemplate",
+                        BenchmarkSupport.acknowledgingKafkaTemplate()))
+                .run("--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                        "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--events.ingress.kafka.enabled=true",
+                        "--events.ingress.kafka.topic=" + TOPIC,
+                        // Keeps the scheduler out of the measurement
+                        "--events.scheduler.fixed-rate-ms=3600000");
+        kafkaStatusUpdates = context.getBean(MeterRegistry.class)
+                .get("events.status.updates").tag("endpoint", "kafka").counter();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        statusUrl = URI.create("http://localhost:" + port + "/events/status");
+        statusBatchUrl = URI.create("http://localhost:" + port + "/events/status/batch");
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        // [0] marks events not live, [1] live
+        singleBodies = new byte[2][UPDATES][];
+        batchBodies = new byte[2][];
+        for (int status = 0; status < 2; status++) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int i = 0; i < UPDATES; i++) {
+                String item = "{\"eventId\":\"ingest-" + i + "\",\"live\":" + (status == 1) + "}";
+                singleBodies[status][i] = item.getBytes(StandardCharsets.UTF_8);
+                batch.append(i > 0 ? "," : "").append(item);
+            }
+            batchBodies[status] = batch.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        producerFactory.destroy();
+        context.close();
+        broker.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void httpSingle() throws IOException, InterruptedException {
+        for (byte[] body : singleBodies[flip()]) {
+            post(statusUrl, body);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void httpBatch() throws IOException, InterruptedException {
+        post(statusBatchUrl, batchBodies[flip()]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void kafka() {
+        double target = kafkaStatusUpdates.count() + UPDATES;
+        byte[][] bodies = singleBodies[flip()];
+        for (int i = 0; i < UPDATES; i++) {
+            kafkaTemplate.send(TOPIC, "ingest-" + i, bodies[i]);
+        }
+        kafkaTemplate.flush();
+        while (kafkaStatusUpdates.count() < target) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    private int flip() {
+        live = !live;
+        return live ? 1 : 0;
+    }
+
+    private void post(URI uri, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST " + uri + " returned HTTP " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.RestCallsApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * End-to-end load test of the whole pipeline: status updates posted to {@code EventController}, the live set,
+ * upstream fetches from a {@link StubUpstream} and publishing, with Kafka replaced by a template that records
+ * every message instead of sending it.
+ * <p>
+ * For each scenario the application is started afresh, the given number of events is posted live, and after a
+ * warm-up the harness measures for the given duration while a share of the events keeps going off and back on.
+ * It reports published messages per second, the latency from the stub serving a score to its publish, the
+ * latency from an event going live to its first publish, and the CPU, heap, thread and GC use of the process
+ * (which also runs the stub and the load generator).
+ * <p>
+ * Options, all {@code --name=value}:
+ * <ul>
+ *     <li>{@code events}: comma-separated live event counts, one scenario each (default {@code 100,1000,10000,100000})</li>
+ *     <li>{@code warmup}, {@code duration}: per scenario (default {@code 10s}, {@code 30s})</li>
+ *     <li>{@code latency}: stub latency, {@code fixed:MS}, {@code uniform:MIN_MS:MAX_MS} or {@code lognormal:MEDIAN_MS:SIGMA}
+ *     (default {@code lognormal:20:0.5})</li>
+ *     <li>{@code error-rate}: share of upstream requests failed with 500 (default {@code 0})</li>
+ *     <li>{@code status-rate}: status updates per second during measurement, half off and half back on (default {@code 1000})</li>
+ * </ul>
+ * Any other option is passed to the application, e.g. {@code --events.scheduler.batch-size=1}.
+ */
+public class LoadHarness {
+
+    private static final int STATUS_BATCH_SIZE = 1_000;
+
+    private final Map<String, String> options;
+    private final Map<String, String> applicationProperties = new LinkedHashMap<>();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final Map<String, Long> servedAt = new ConcurrentHashMap<>();
+    private final Map<String, Long> liveSince = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private SimpleMeterRegistry latencies;
+    private Timer servedToPublished;
+    private Timer liveToFirstPublish;
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+        applicationProperties.put("server.port", "0");
+        applicationProperties.put("spring.main.banner-mode", "off");
+        applicationProperties.put("logging.level.root", "WARN");
+        applicationProperties.put("events.scheduler.fixed-rate-ms", "1000");
+        applicationProperties.put("events.scheduler.tick-deadline", "900ms");
+        applicationProperties.put("events.scheduler.execution-mode", "CONCURRENT");
+        applicationProperties.put("events.scheduler.max-concurrency", "64");
+        applicationProperties.put("events.scheduler.batch-size", "100");
+        options.forEach((name, value) -> {
+            if (name.contains(".")) {
+                applicationProperties.put(name, value);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadHarness(options).run();
+    }
+
+    void run() throws Exception {
+        int[] scenarios = Arrays.stream(option("events", "100,1000,10000,100000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+        List<String> results = new ArrayList<>();
+        for (int liveEvents : scenarios) {
+            results.add(runScenario(liveEvents));
+        }
+        System.out.println();
+        System.out.printf("Stub latency %s, error rate %s, %s status updates/s, %s%n", option("latency", "lognormal:20:0.5"),
+                option("error-rate", "0"), option("status-rate", "1000"), applicationProperties);
+        System.out.printf("%8s %10s %10s | %-40s | %-24s | %6s %8s %7s %9s%n", "events", "publish/s", "fetch/s",
+                "served->published ms (p50/p90/p99/p99.9/max)", "live->published ms (p50/p99)", "cpu%", "heap MB", "threads", "gc ms/s");
+        results.forEach(System.out::println);
+    }
+
+    private String runScenario(int liveEvents) throws Exception {
+        System.out.printf("Running scenario with %d live events...%n", liveEvents);
+        servedAt.clear();
+        liveSince.clear();
+        resetLatencies();
+        double errorRate = Double.parseDouble(option("error-rate", "0"));
+        try (StubUpstream upstream = new StubUpstream(latencyModel(option("latency", "lognormal:20:0.5")), errorRate,
+                eventId -> servedAt.put(eventId, System.nanoTime()))) {
+            applicationProperties.put("events.upstream.base-url", upstream.baseUrl());
+            try (ConfigurableApplicationContext context = startApplication()) {
+                URI statusBatchUri = URI.create("http://127.0.0.1:"
+                        + ((WebServerApplicationContext) context).getWebServer().getPort() + "/events/status/batch");
+                List<String> eventIds = new ArrayList<>(liveEvents);
+                for (int i = 0; i < liveEvents; i++) {
+                    eventIds.add("load-" + i);
+                }
+                for (int from = 0; from < liveEvents; from += STATUS_BATCH_SIZE) {
+                    postStatuses(statusBatchUri, eventIds.subList(from, Math.min(from + STATUS_BATCH_SIZE, liveEvents)), List.of());
+                }
+
+                StatusChurn churn = new StatusChurn(statusBatchUri, eventIds, Integer.parseInt(option("status-rate", "1000")));
+                churn.runFor(parseDuration(option("warmup", "10s")));
+                resetLatencies();
+                published.reset();
+                return measure(context, upstream, churn, liveEvents);
+            }
+        }
+    }
+
+    private String measure(ConfigurableApplicationContext context, StubUpstream upstream, StatusChurn churn, int liveEvents)
+            throws Exception {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long startRequests = upstream.requestCount();
+        long startCpu = os.getProcessCpuTime();
+        long startGc = gcMillis();
+        long start = System.nanoTime();
+        ResourceSampler sampler = new ResourceSampler();
+        sampler.start();
+        churn.runFor(parseDuration(option("duration", "30s")));
+        sampler.interrupt();
+        sampler.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double cpuPercent = 100.0 * (os.getProcessCpuTime() - startCpu) / 1e9 / seconds / os.getAvailableProcessors();
+        HistogramSnapshot served = servedToPublished.takeSnapshot();
+        HistogramSnapshot live = liveToFirstPublish.takeSnapshot();
+        long dropped = (long) context.getBean(MeterRegistry.class).get("events.publisher.dropped").counter().count();
+        return String.format("%8d %10.0f %10.0f | %-40s | %-24s | %6.0f %8d %7d %9.1f%s", liveEvents,
+                published.sum() / seconds, (upstream.requestCount() - startRequests) / seconds,
+                percentiles(served, true), percentiles(live, false), cpuPercent, sampler.maxHeapBytes / (1024 * 1024),
+                sampler.maxThreads, (gcMillis() - startGc) / seconds, dropped > 0 ? "  (" + dropped + " dropped)" : "");
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        // As command line arguments, so that they take precedence over application.properties
+        String[] args = applicationProperties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(RestCallsApplication.class)
+                .initializers(context -> context.getBeanFactory().registerSingleton("kafkaTemplate",
+                        BenchmarkSupport.acknowledgingKafkaTemplate((key, data) -> recordPublish(key))))
+                .run(args);
+    }
+
+    private void recordPublish(String eventId) {
+        long now = System.nanoTime();
+        published.increment();
+        Long served = servedAt.get(eventId);
+        if (served != null) {
+            servedToPublished.record(now - served, TimeUnit.NANOSECONDS);
+        }
+        Long since = liveSince.remove(eventId);
+        if (since != null) {
+            liveToFirstPublish.record(now - since, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void resetLatencies() {
+        latencies = new SimpleMeterRegistry();
+        servedToPublished = latencyTimer("served.to.published");
+        liveToFirstPublish = latencyTimer("live.to.first.publish");
+    }
+
+    private Timer latencyTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(2)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(latencies);
+    }
+
+    private static String percentiles(HistogramSnapshot snapshot, boolean all) {
+        if (snapshot.count() == 0) {
+            return "-";
+        }
+        StringBuilder text = new StringBuilder();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            if (all || percentile.percentile() == 0.5 || percentile.percentile() == 0.99) {
+                text.append(String.format("%.1f/", percentile.value(TimeUnit.MILLISECONDS)));
+            }
+        }
+        if (all) {
+            return text.append(String.format("%.1f", snapshot.max(TimeUnit.MILLISECONDS))).toString();
+        }
+        return text.substring(0, text.length() - 1);
+    }
+
+    private void postStatuses(URI uri, List<String> live, List<String> notLive) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder((live.size() + notLive.size()) * 40);
+        for (String eventId : notLive) {
+            body.append("{\"eventId\":\"").append(eventId).append("\",\"live\":false}\n");
+        }
+        long now = System.nanoTime();
+        for (String eventId : live) {
+            liveSince.put(eventId, now);
+            body.append("{\"eventId\":\"").append(eventId).append("\",\"live\":true}\n");
+        }
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Status batch rejected with " + response.statusCode());
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static Duration parseDuration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    /**
+     * @return a source of stub response delays in nanoseconds for the given {@code --latency} option
+     */
+    static LongSupplier latencyModel(String spec) {
+        String[] parts = spec.split(":");
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        switch (parts[0]) {
+            case "fixed" -> {
+                long delay = (long) (Double.parseDouble(parts[1]) * millis);
+                return () -> delay;
+            }
+            case "uniform" -> {
+                long min = (long) (Double.parseDouble(parts[1]) * millis);
+                long max = (long) (Double.parseDouble(parts[2]) * millis);
+                return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+            case "lognormal" -> {
+                double median = Double.parseDouble(parts[1]) * millis;
+                double sigma = Double.parseDouble(parts[2]);
+                return () -> (long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency model '" + spec + "'");
+        }
+    }
+
+    /**
+     * Keeps taking random events off and putting the ones taken off in the previous round back on, so the live
+     * set keeps its size while events keep entering it.
+     */
+    private final class StatusChurn {
+
+        private static final long ROUND_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final URI uri;
+        private final List<String> eventIds;
+        private final int perRound;
+        private final Deque<String> offline = new ArrayDeque<>();
+
+        StatusChurn(URI uri, List<String> eventIds, int updatesPerSecond) {
+            this.uri = uri;
+            this.eventIds = eventIds;
+            this.perRound = Math.min(eventIds.size() / 2, updatesPerSecond / 20);
+        }
+
+        void runFor(Duration duration) throws IOException, InterruptedException {
+            long end = System.nanoTime() + duration.toNanos();
+            long nextRound = System.nanoTime();
+            while (System.nanoTime() < end) {
+                if (perRound > 0) {
+                    List<String> backOn = new ArrayList<>(offline);
+                    offline.clear();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (offline.size() < perRound) {
+                        String eventId = eventIds.get(random.nextInt(eventIds.size()));
+                        if (!backOn.contains(eventId) && !offline.contains(eventId)) {
+                            offline.add(eventId);
+                        }
+                    }
+                    postStatuses(uri, backOn, new ArrayList<>(offline));
+                }
+                nextRound += ROUND_NANOS;
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, nextRound - System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Records the peak heap use and thread count while a measurement runs.
+     */
+    private static final class ResourceSampler extends Thread {
+
+        private volatile long maxHeapBytes;
+        private volatile int maxThreads;
+
+        ResourceSampler() {
+            super("load-resource-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                maxHeapBytes = Math.max(maxHeapBytes, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+                maxThreads = Math.max(maxThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+                try {
+                    Thread.sleep(250);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
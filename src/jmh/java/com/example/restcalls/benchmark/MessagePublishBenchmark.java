@@ -0,0 +1,61 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.service.MessageProducerService;
+import com.example.restcalls.service.ScoreUpdateEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing one score update: encoding {@link MockApiResponse} alone, next to generic Jackson
+ * serialization as a baseline, and the whole {@link MessageProducerService#sendMessage} path against a template
+ * that acknowledges immediately. Run with {@code -prof gc} to see the allocation per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessagePublishBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockApiResponse update = new MockApiResponse("mockEvent-1234567", "2:1");
+    private final ScoreUpdateEncoder encoder = new ScoreUpdateEncoder(objectMapper);
+    private MessageProducerService producerService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        producerService = new MessageProducerService(objectMapper, BenchmarkSupport.acknowledgingKafkaTemplate(),
+                new PublisherProperties(), BenchmarkSupport.eventMetrics());
+    }
+
+    @Benchmark
+    public byte[] encode() throws JsonProcessingException {
+        return encoder.encode(update);
+    }
+
+    @Benchmark
+    public String objectMapperBaseline() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(update);
+    }
+
+    @Benchmark
+    public boolean sendMessage() {
+        return producerService.sendMessage("live_event_updates", update);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ClusterProperties;
+import com.example.restcalls.config.ExpiryProperties;
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.config.SchedulerProperties;
+import com.example.restcalls.config.StreamProperties;
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.scheduler.AdaptivePollSchedule;
+import com.example.restcalls.scheduler.EventFetchPool;
+import com.example.restcalls.scheduler.EventScheduler;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.LastPublishedScoreCache;
+import com.example.restcalls.service.MessageProducerService;
+import com.example.restcalls.stream.ScoreUpdateBroadcaster;
+import com.example.restcalls.upstream.EntityTagCache;
+import com.example.restcalls.upstream.SingleFlightScoreCache;
+import com.example.restcalls.upstream.UpstreamClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full scheduler run over the live events: upstream fetches over HTTP against an in-process
+ * {@link StubUpstream}, change detection and publishing to a template that acknowledges immediately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SchedulerTickBenchmark {
+
+    @Param({"1000"})
+    int liveEvents;
+
+    @Param({"SEQUENTIAL", "CONCURRENT"})
+    SchedulerProperties.ExecutionMode executionMode;
+
+    @Param({"1", "50"})
+    int batchSize;
+
+    @Param({"0", "5"})
+    int upstreamDelayMillis;
+
+    private StubUpstream upstream;
+    private EventFetchPool eventFetchPool;
+    private ScoreUpdateBroadcaster scoreUpdateBroadcaster;
+    private EventScheduler scheduler;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        upstream = new StubUpstream(Duration.ofMillis(upstreamDelayMillis));
+
+        SchedulerProperties schedulerProperties = new SchedulerProperties();
+        schedulerProperties.setExecutionMode(executionMode);
+        schedulerProperties.setBatchSize(batchSize);
+        schedulerProperties.setTickDeadline(Duration.ofMinutes(1));
+        UpstreamProperties upstreamProperties = new UpstreamProperties();
+        upstreamProperties.setBaseUrl(upstream.baseUrl());
+        // Every run should reach the stub rather than the score cache
+        upstreamProperties.getCache().setTtl(Duration.ZERO);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        EventService eventService = new EventService();
+        for (int i = 0; i < liveEvents; i++) {
+            eventService.updateEventStatus("event-" + i, true);
+        }
+        PublisherProperties publisherProperties = new PublisherProperties();
+        EventMetrics eventMetrics = BenchmarkSupport.eventMetrics();
+        eventFetchPool = new EventFetchPool(schedulerProperties);
+        scoreUpdateBroadcaster = new ScoreUpdateBroadcaster(new StreamProperties(), objectMapper);
+        scheduler = new EventScheduler(eventService,
+                new UpstreamClient(upstreamProperties, objectMapper),
+                new MessageProducerService(objectMapper, BenchmarkSupport.acknowledgingKafkaTemplate(), publisherProperties,
+                        eventMetrics),
+                schedulerProperties,
+                eventFetchPool,
+                new AdaptivePollSchedule(schedulerProperties),
+                new LastPublishedScoreCache(publisherProperties),
+                new ShardOwnership(new ClusterProperties()),
+                eventMetrics,
+                scoreUpdateBroadcaster,
+                new SingleFlightScoreCache(upstreamProperties),
+                new LiveEventExpiry(eventService, new ShardOwnership(new ClusterProperties()), new ExpiryProperties()),
+                new EntityTagCache(upstreamProperties));
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventFetchPool.destroy();
+        scoreUpdateBroadcaster.destroy();
+        upstream.close();
+    }
+
+    @Benchmark
+    public void tick() {
+        scheduler.fetchLiveEventData();
+    }
+}
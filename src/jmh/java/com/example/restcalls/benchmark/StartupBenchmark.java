@@ -0,0 +1,197 @@
+package com.example.restcalls.benchmark;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startup benchmark of the packaged application: starts the jar as a separate JVM, waits for the first scheduler
+ * run and reports how long that took and the resident set size of the process at that point.
+ * <p>
+ * Scenarios: the plain jar, the jar with the {@code fast-start} profile (lazy initialization) and, when the
+ * archive built by {@code mvn -Pcds package} is present, the extracted jar with the CDS archive, without and with
+ * {@code fast-start}. Each scenario is started {@code runs} times and the median and best run are reported.
+ * <p>
+ * Options, all {@code --name=value}:
+ * <ul>
+ *     <li>{@code jar}: the executable jar (default {@code target/calls-0.0.1-SNAPSHOT.jar})</li>
+ *     <li>{@code cds-directory}: where {@code -Pcds} extracted the jar and wrote {@code application.jsa}
+ *     (default {@code target/cds})</li>
+ *     <li>{@code runs}: starts per scenario (default {@code 5})</li>
+ *     <li>{@code jvm-args}: space-separated JVM options for every start, e.g. {@code -Xmx512m}</li>
+ *     <li>{@code timeout}: time allowed for one start (default {@code 120s})</li>
+ * </ul>
+ * Any other option is passed to the application, e.g. {@code --events.scheduler.execution-mode=CONCURRENT}.
+ * RSS is read from {@code /proc} and only reported on Linux.
+ */
+public class StartupBenchmark {
+
+    private static final String FIRST_RUN_MARKER = "First scheduler run started";
+    private static final Pattern FIRST_RUN_UPTIME = Pattern.compile(FIRST_RUN_MARKER + " (\\d+) ms");
+    private static final String ARCHIVE_FILE = "application.jsa";
+
+    private final Map<String, String> options;
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    StartupBenchmark(Map<String, String> options) {
+        this.options = options;
+        applicationArgs.add("--server.port=0");
+        applicationArgs.add("--spring.main.banner-mode=off");
+        applicationArgs.add("--logging.level.root=WARN");
+        applicationArgs.add("--logging.level.com.example.restcalls.scheduler.EventScheduler=INFO");
+        options.forEach((name, value) -> {
+            if (name.contains(".")) {
+                applicationArgs.add("--" + name + "=" + value);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new StartupBenchmark(options).run();
+    }
+
+    void run() throws Exception {
+        Path jar = Path.of(option("jar", "target/calls-0.0.1-SNAPSHOT.jar"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No application jar at " + jar + "; run mvn package first");
+        }
+        Path cdsDirectory = Path.of(option("cds-directory", "target/cds"));
+        Path archive = cdsDirectory.resolve(ARCHIVE_FILE);
+        Path extractedJar = cdsDirectory.resolve(jar.getFileName());
+
+        List<String> results = new ArrayList<>();
+        results.add(runScenario("jar", List.of(), jar, List.of()));
+        results.add(runScenario("jar, fast-start", List.of(), jar, List.of("--spring.profiles.active=fast-start")));
+        if (Files.isRegularFile(archive) && Files.isRegularFile(extractedJar)) {
+            List<String> sharedArchive = List.of("-XX:SharedArchiveFile=" + archive);
+            results.add(runScenario("cds", sharedArchive, extractedJar, List.of()));
+            results.add(runScenario("cds, fast-start", sharedArchive, extractedJar, List.of("--spring.profiles.active=fast-start")));
+        } else {
+            System.out.printf("No CDS archive at %s; run mvn -Pcds package to include the CDS scenarios.%n", archive);
+        }
+
+        System.out.println();
+        System.out.printf("%d starts per scenario, JVM options %s, %s%n", runs(), jvmArgs(), applicationArgs);
+        System.out.printf("%-18s | %-26s | %-22s | %-18s%n", "scenario", "to first run ms (med/min)",
+                "JVM uptime ms (med/min)", "RSS MB (med/min)");
+        results.forEach(System.out::println);
+    }
+
+    private String runScenario(String name, List<String> extraJvmArgs, Path jar, List<String> extraApplicationArgs) throws Exception {
+        System.out.printf("Running scenario '%s'...%n", name);
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs());
+        command.addAll(extraJvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(applicationArgs);
+        command.addAll(extraApplicationArgs);
+
+        long[] toFirstRun = new long[runs()];
+        long[] uptime = new long[runs()];
+        long[] rss = new long[runs()];
+        for (int i = 0; i < runs(); i++) {
+            Start start = start(command);
+            toFirstRun[i] = start.toFirstRunMillis;
+            uptime[i] = start.uptimeMillis;
+            rss[i] = start.rssKilobytes;
+        }
+        return String.format("%-18s | %-26s | %-22s | %-18s", name, medianAndMin(toFirstRun, 1), medianAndMin(uptime, 1),
+                rss[0] < 0 ? "n/a" : medianAndMin(rss, 1024));
+    }
+
+    private Start start(List<String> command) throws Exception {
+        long timeoutNanos = DurationStyle.detectAndParse(option("timeout", "120s")).toNanos();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // Kills a process that never gets to its first run, which also ends the read loop below
+        Thread watchdog = new Thread(() -> {
+            try {
+                if (!process.waitFor(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "startup-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = FIRST_RUN_UPTIME.matcher(line);
+                if (matcher.find()) {
+                    long toFirstRun = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    long rss = residentSetKilobytes(process.pid());
+                    return new Start(toFirstRun, Long.parseLong(matcher.group(1)), rss);
+                }
+                output.add(line);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            watchdog.interrupt();
+        }
+        output.stream().skip(Math.max(0, output.size() - 20)).forEach(System.out::println);
+        throw new IllegalStateException("The application exited or timed out before its first scheduler run");
+    }
+
+    private static long residentSetKilobytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process is gone
+        }
+        return -1;
+    }
+
+    private static String medianAndMin(long[] values, long divisor) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return String.format("%d / %d", sorted[sorted.length / 2] / divisor, sorted[0] / divisor);
+    }
+
+    private int runs() {
+        return Integer.parseInt(option("runs", "5"));
+    }
+
+    private List<String> jvmArgs() {
+        String jvmArgs = option("jvm-args", "").trim();
+        return jvmArgs.isEmpty() ? List.of() : List.of(jvmArgs.split("\\s+"));
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private record Start(long toFirstRunMillis, long uptimeMillis, long rssKilobytes) {
+    }
+}
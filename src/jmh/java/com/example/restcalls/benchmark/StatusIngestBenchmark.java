@@ -0,0 +1,70 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.controller.EventController;
+import com.example.restcalls.dto.EventStatusUpdate;
+import com.example.restcalls.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status updates per second through {@link EventController}: one JSON document per update versus the streaming
+ * {@code /status/batch} endpoint. Both parse the same updates from bytes; HTTP itself is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusIngestBenchmark {
+
+    private static final int UPDATES = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EventController controller;
+    private byte[][] singleBodies;
+    private byte[] batchBody;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        controller = new EventController(new EventService(), objectMapper, BenchmarkSupport.eventMetrics());
+        singleBodies = new byte[UPDATES][];
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < UPDATES; i++) {
+            String item = "{\"eventId\":\"event-" + i + "\",\"live\":" + (i % 2 == 0) + "}";
+            singleBodies[i] = item.getBytes(StandardCharsets.UTF_8);
+            batch.append(i > 0 ? "," : "").append(item);
+        }
+        batchBody = batch.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void singleUpdates() throws IOException {
+        for (byte[] body : singleBodies) {
+            controller.updateEventStatus(objectMapper.readValue(body, EventStatusUpdate.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public Object batchUpdate() throws IOException {
+        return controller.updateEventStatusBatch(new ByteArrayInputStream(batchBody));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.restcalls.benchmark;
+
+import com.example.restcalls.config.PersistenceProperties;
+import com.example.restcalls.persistence.EventStatusStore;
+import com.example.restcalls.service.EventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery of {@link EventStatusStore}: loading a snapshot of {@code liveEvents} events into a fresh
+ * {@link EventService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StatusRecoveryBenchmark {
+
+    @Param({"1000000"})
+    int liveEvents;
+
+    private final PersistenceProperties properties = new PersistenceProperties();
+    private Path directory;
+    private EventStatusStore store;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws Exception {
+        BenchmarkSupport.quietLogging();
+        directory = Files.createTempDirectory("status-recovery");
+        properties.setDirectory(directory.toString());
+        EventService eventService = new EventService();
+        for (int i = 0; i < liveEvents; i++) {
+            eventService.updateEventStatus("event-" + i, true);
+        }
+        // Stopping a store leaves a snapshot of the service's live events behind
+        EventStatusStore writer = new EventStatusStore(eventService, properties);
+        writer.afterPropertiesSet();
+        writer.destroy();
+    }
+
+    @Benchmark
+    public EventService recover() throws IOException {
+        EventService eventService = new EventService();
+        store = new EventStatusStore(eventService, properties);
+        store.afterPropertiesSet();
+        return eventService;
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopStore() throws Exception {
+        store.destroy();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
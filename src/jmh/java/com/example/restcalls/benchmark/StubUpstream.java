@@ -0,0 +1,131 @@
+package com.example.restcalls.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process stand-in for the score API. It serves {@code /mockapi/event/{id}} and {@code /mockapi/events?ids=}
+ * like {@code EventController} does, optionally after a delay to model network and provider latency, and can
+ * fail a share of the requests with 500.
+ */
+final class StubUpstream implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongSupplier delayNanos;
+    private final double errorRate;
+    private final Consumer<String> onServed;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    StubUpstream(Duration delay) throws IOException {
+        this(delay::toNanos, 0, eventId -> {
+        });
+    }
+
+    /**
+     * @param delayNanos drawn once per request; the response is held back this long
+     * @param errorRate  share of requests answered with 500
+     * @param onServed   called with every event id just before its data is sent
+     */
+    StubUpstream(LongSupplier delayNanos, double errorRate, Consumer<String> onServed) throws IOException {
+        this.delayNanos = delayNanos;
+        this.errorRate = errorRate;
+        this.onServed = onServed;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/mockapi/event/", this::handleEvent);
+        server.createContext("/mockapi/events", this::handleEvents);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/mockapi";
+    }
+
+    long requestCount() {
+        return requests.sum();
+    }
+
+    long errorCount() {
+        return errors.sum();
+    }
+
+    private void handleEvent(HttpExchange exchange) throws IOException {
+        if (delayOrFail(exchange)) {
+            return;
+        }
+        String eventId = exchange.getRequestURI().getPath().substring("/mockapi/event/".length());
+        respond(exchange, event(new StringBuilder(64), eventId).toString());
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        if (delayOrFail(exchange)) {
+            return;
+        }
+        StringBuilder body = new StringBuilder(4096).append('[');
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            event(body, param.substring("ids=".length()));
+        }
+        respond(exchange, body.append(']').toString());
+    }
+
+    /**
+     * @return whether the request was failed and already answered
+     */
+    private boolean delayOrFail(HttpExchange exchange) throws IOException {
+        requests.increment();
+        long delay = delayNanos.getAsLong();
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.increment();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return true;
+        }
+        return false;
+    }
+
+    private StringBuilder event(StringBuilder body, String eventId) {
+        onServed.accept(eventId);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return body.append("{\"eventId\":\"").append(eventId).append("\",\"currentScore\":\"")
+                .append(random.nextInt(5)).append(':').append(random.nextInt(5)).append("\"}");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
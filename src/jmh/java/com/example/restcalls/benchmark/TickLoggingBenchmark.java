@@ -0,0 +1,176 @@
+package com.example.restcalls.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ClusterProperties;
+import com.example.restcalls.config.ExpiryProperties;
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.config.SchedulerProperties;
+import com.example.restcalls.config.StreamProperties;
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.dto.Score;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.scheduler.AdaptivePollSchedule;
+import com.example.restcalls.scheduler.EventFetchPool;
+import com.example.restcalls.scheduler.EventScheduler;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.LastPublishedScoreCache;
+import com.example.restcalls.service.MessageProducerService;
+import com.example.restcalls.stream.ScoreUpdateBroadcaster;
+import com.example.restcalls.upstream.EntityTagCache;
+import com.example.restcalls.upstream.SingleFlightScoreCache;
+import com.example.restcalls.upstream.TaggedResponse;
+import com.example.restcalls.upstream.UpstreamClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging overhead of a scheduler run with the upstream taken out of the picture: fetches are answered in
+ * memory and output goes to a discarding stream through a real Logback encoder.
+ * <ul>
+ *     <li>{@code SYNC_PER_EVENT}: the previous behaviour, every per-event line (now DEBUG) written synchronously</li>
+ *     <li>{@code SYNC_SUMMARY}: one summary line per run plus the sampled per-event lines, written synchronously</li>
+ *     <li>{@code ASYNC_SUMMARY}: the same through a non-blocking {@link AsyncAppender}, as in the
+ *     {@code low-overhead-logging} profile</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickLoggingBenchmark {
+
+    public enum LogMode { SYNC_PER_EVENT, SYNC_SUMMARY, ASYNC_SUMMARY }
+
+    @Param({"1000"})
+    int liveEvents;
+
+    @Param({"SYNC_PER_EVENT", "SYNC_SUMMARY", "ASYNC_SUMMARY"})
+    LogMode logMode;
+
+    private EventFetchPool eventFetchPool;
+    private ScoreUpdateBroadcaster scoreUpdateBroadcaster;
+    private EventScheduler scheduler;
+    private Appender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        configureLogging();
+
+        SchedulerProperties schedulerProperties = new SchedulerProperties();
+        ObjectMapper objectMapper = new ObjectMapper();
+        EventService eventService = new EventService();
+        for (int i = 0; i < liveEvents; i++) {
+            eventService.updateEventStatus("event-" + i, true);
+        }
+        PublisherProperties publisherProperties = new PublisherProperties();
+        EventMetrics eventMetrics = BenchmarkSupport.eventMetrics();
+        eventFetchPool = new EventFetchPool(schedulerProperties);
+        scoreUpdateBroadcaster = new ScoreUpdateBroadcaster(new StreamProperties(), objectMapper);
+        scheduler = new EventScheduler(eventService,
+                new InMemoryUpstreamClient(objectMapper),
+                new MessageProducerService(objectMapper, BenchmarkSupport.acknowledgingKafkaTemplate(), publisherProperties,
+                        eventMetrics),
+                schedulerProperties,
+                eventFetchPool,
+                new AdaptivePollSchedule(schedulerProperties),
+                new LastPublishedScoreCache(publisherProperties),
+                new ShardOwnership(new ClusterProperties()),
+                eventMetrics,
+                scoreUpdateBroadcaster,
+                new SingleFlightScoreCache(new UpstreamProperties()),
+                new LiveEventExpiry(eventService, new ShardOwnership(new ClusterProperties()), new ExpiryProperties()),
+                new EntityTagCache(new UpstreamProperties()));
+    }
+
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+        context.getLogger("com.example.restcalls").setLevel(logMode == LogMode.SYNC_PER_EVENT ? Level.DEBUG : Level.INFO);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+
+        if (logMode == LogMode.ASYNC_SUMMARY) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            appender = async;
+        } else {
+            appender = output;
+        }
+        root.addAppender(appender);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventFetchPool.destroy();
+        scoreUpdateBroadcaster.destroy();
+        appender.stop();
+    }
+
+    @Benchmark
+    public void tick() {
+        scheduler.fetchLiveEventData();
+    }
+
+    /**
+     * Answers fetches from memory with a random score, so that some updates are published and some are not.
+     */
+    private static final class InMemoryUpstreamClient extends UpstreamClient {
+
+        InMemoryUpstreamClient(ObjectMapper objectMapper) {
+            super(new UpstreamProperties(), objectMapper);
+        }
+
+        @Override
+        public MockApiResponse fetchEvent(String eventId) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return new MockApiResponse(eventId, Score.format(random.nextInt(2), random.nextInt(2)));
+        }
+
+        @Override
+        public TaggedResponse fetchEventIfModified(String eventId, TaggedResponse previous) {
+            return new TaggedResponse(fetchEvent(eventId), null);
+        }
+    }
+}
@@ -2,20 +2,15 @@ package com.example.restcalls;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableScheduling
 public class RestCallsApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(RestCallsApplication.class, args);
     }
-
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
@@ -0,0 +1,62 @@
+package com.example.restcalls.cluster;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Actuator endpoint for cluster membership ({@code /actuator/cluster}). A deployment tool or peer discovery pushes
+ * the current member list to every instance; each instance then polls only the events it owns.
+ * <p>
+ * Changing the members can make an instance drop every event, so the endpoint is an actuator endpoint rather than
+ * part of the public API: it is only reachable once added to {@code management.endpoints.web.exposure.include},
+ * and can then be kept on {@code management.server.port} or behind the management security of the deployment.
+ */
+@Component
+@Endpoint(id = "cluster")
+public class ClusterMembersEndpoint {
+
+    private final ShardOwnership shardOwnership;
+
+    public ClusterMembersEndpoint(ShardOwnership shardOwnership) {
+        this.shardOwnership = shardOwnership;
+    }
+
+    @ReadOperation
+    public List<String> members() {
+        return shardOwnership.getMembers();
+    }
+
+    /**
+     * Replaces the member list, given comma-separated like {@code events.cluster.members}: actuator write operations
+     * take scalar arguments only.
+     */
+    @WriteOperation
+    public List<String> setMembers(String members) {
+        List<String> memberIds = Arrays.stream(members.split(",", -1)).map(String::trim).toList();
+        if (memberIds.stream().anyMatch(String::isEmpty)) {
+            throw new InvalidEndpointRequestException("Member ids must not be empty: " + members, "Empty member id");
+        }
+        shardOwnership.setMembers(memberIds);
+        return shardOwnership.getMembers();
+    }
+
+    @WriteOperation
+    public List<String> join(@Selector String memberId) {
+        shardOwnership.join(memberId);
+        return shardOwnership.getMembers();
+    }
+
+    @DeleteOperation
+    public List<String> leave(@Selector String memberId) {
+        shardOwnership.leave(memberId);
+        return shardOwnership.getMembers();
+    }
+}
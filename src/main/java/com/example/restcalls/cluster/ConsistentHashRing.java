@@ -0,0 +1,82 @@
+package com.example.restcalls.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring. Every member is placed on the ring at {@code virtualNodes} points and a key
+ * belongs to the member owning the first point at or after the key's hash. Adding or removing a member only
+ * moves the keys between that member's points and their predecessors, about {@code 1/n} of all keys.
+ * <p>
+ * Placement depends only on the member ids, so every instance that is given the same member list computes
+ * the same owner for every key without talking to the others.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.members = List.copyOf(new TreeSet<>(members));
+        int size = this.members.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] pointOwners = new String[size];
+        int i = 0;
+        for (String member : this.members) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hash(member + "#" + v);
+                pointOwners[i] = member;
+                i++;
+            }
+        }
+
+        // Sort the points, keeping each owner next to its point
+        Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int j = 0; j < size; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = pointOwners[order[j]];
+        }
+    }
+
+    /**
+     * Returns the member owning {@code key}, or {@code null} if the ring has no members.
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the MurmurHash3 64-bit mixer for an even spread
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.restcalls.cluster;
+
+import com.example.restcalls.config.ClusterProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which live events this instance polls. In cluster mode each eventId is owned by exactly one member
+ * of the configured member list, chosen by a {@link ConsistentHashRing}; outside cluster mode this instance
+ * owns every event. Membership changes swap in a new ring atomically, so ownership rebalances from the next
+ * scheduler run on.
+ */
+@Component
+public class ShardOwnership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardOwnership.class);
+
+    private final boolean enabled;
+    private final String selfId;
+    private final int virtualNodes;
+    private volatile ConsistentHashRing ring;
+
+    public ShardOwnership(ClusterProperties clusterProperties) {
+        this.enabled = clusterProperties.isEnabled();
+        this.selfId = clusterProperties.getSelfId();
+        this.virtualNodes = clusterProperties.getVirtualNodes();
+        this.ring = new ConsistentHashRing(withSelf(clusterProperties.getMembers()), virtualNodes);
+        if (enabled) {
+            logger.info("Cluster mode enabled. This instance is '{}', members: {}", selfId, ring.getMembers());
+        }
+    }
+
+    public boolean owns(String eventId) {
+        return !enabled || selfId.equals(ring.ownerOf(eventId));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelfId() {
+        return selfId;
+    }
+
+    public List<String> getMembers() {
+        return ring.getMembers();
+    }
+
+    /**
+     * Replaces the member list. This instance always stays a member of its own ring.
+     */
+    public synchronized void setMembers(Collection<String> members) {
+        ConsistentHashRing next = new ConsistentHashRing(withSelf(members), virtualNodes);
+        logger.info("Cluster membership changed from {} to {}. Event ownership is rebalanced.", ring.getMembers(), next.getMembers());
+        ring = next;
+    }
+
+    public synchronized void join(String memberId) {
+        Set<String> members = new LinkedHashSet<>(ring.getMembers());
+        if (members.add(memberId)) {
+            setMembers(members);
+        }
+    }
+
+    public synchronized void leave(String memberId) {
+        Set<String> members = new LinkedHashSet<>(ring.getMembers());
+        if (!memberId.equals(selfId) && members.remove(memberId)) {
+            setMembers(members);
+        }
+    }
+
+    private Set<String> withSelf(Collection<String> members) {
+        Set<String> all = new LinkedHashSet<>(members);
+        all.add(selfId);
+        return all;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for splitting event polling across several instances ({@code events.cluster.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.cluster")
+public class ClusterProperties {
+
+    /** When disabled, this instance polls every live event. */
+    private boolean enabled = false;
+
+    /** Identifier of this instance; must appear in {@code members} and be unique in the cluster. */
+    private String selfId = "node-1";
+
+    /** Initial member list, identical on every instance. It can be changed at runtime via the {@code cluster} actuator endpoint. */
+    private List<String> members = new ArrayList<>();
+
+    /** Points per member on the hash ring; more points spread events more evenly. */
+    private int virtualNodes = 128;
+}
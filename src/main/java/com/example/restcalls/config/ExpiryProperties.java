@@ -0,0 +1,23 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for demoting live events that have gone quiet ({@code events.expiry.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.expiry")
+public class ExpiryProperties {
+
+    /**
+     * Time a live event stays live without activity: a status update marking it live, or a fetch that yields a
+     * new score. Zero disables expiry, so events stay live until they are marked not live.
+     */
+    private Duration ttl = Duration.ZERO;
+
+    /** Resolution of expiry; an event is demoted at most this long after its deadline. */
+    private Duration tick = Duration.ofSeconds(1);
+}
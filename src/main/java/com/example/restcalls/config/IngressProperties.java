@@ -0,0 +1,36 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for status updates arriving other than through the REST endpoints ({@code events.ingress.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.ingress")
+public class IngressProperties {
+
+    private final Kafka kafka = new Kafka();
+
+    /**
+     * Status updates consumed in batches from a Kafka topic. Connection settings (bootstrap servers, security)
+     * are taken from {@code spring.kafka.consumer.*}.
+     */
+    @Data
+    public static class Kafka {
+
+        private boolean enabled = false;
+
+        /** Topic of status records: keyed by event id, valued with the JSON body of {@code POST /events/status}. */
+        private String topic = "event_status_updates";
+
+        /** Consumer group; in cluster mode every instance needs all updates, so give each its own group. */
+        private String groupId = "rest-calls-status-ingress";
+
+        /** Consumers in this instance; more than the topic's partitions stay idle. */
+        private int concurrency = 1;
+
+        /** Records handed to the listener per batch at most. */
+        private int maxPollRecords = 500;
+    }
+}
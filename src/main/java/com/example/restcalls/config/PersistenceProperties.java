@@ -0,0 +1,28 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for persisting event statuses across restarts ({@code events.persistence.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.persistence")
+public class PersistenceProperties {
+
+    private boolean enabled = false;
+
+    /** Directory holding the status snapshot and the append-only status log. */
+    private String directory = "data";
+
+    /** How often the log is compacted into a fresh snapshot. */
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+
+    /** Status updates that may wait for the log writer; for further ones it logs the event's status once it catches up. */
+    private int queueCapacity = 100_000;
+
+    /** Force every written batch to disk. Without it the log survives a process crash but not a power loss. */
+    private boolean fsync = false;
+}
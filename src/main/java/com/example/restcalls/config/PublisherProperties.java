@@ -0,0 +1,58 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for publishing live event updates to Kafka ({@code events.publisher.*}).
+ * Producer level tuning (batching, compression, acks) lives under {@code spring.kafka.producer.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "events.publisher")
+public class PublisherProperties {
+
+    /**
+     * Sends that may be awaiting a broker acknowledgement at once. Beyond it updates wait in the outbox, or are
+     * dropped when the outbox is disabled.
+     */
+    private int maxInFlight = 10_000;
+
+    /**
+     * Pause before the outbox retries after a failed send. Without the outbox a failed send is not retried
+     * beyond the producer's own retries ({@code spring.kafka.producer.properties.delivery.timeout.ms}).
+     */
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+    /** Suppress updates whose score equals the last one published for the same event. */
+    private boolean changeOnly = true;
+
+    /** Re-publish an unchanged score once this long has passed since the last publish; unset or zero disables it. */
+    private Duration heartbeatInterval;
+
+    private final Outbox outbox = new Outbox();
+
+    /**
+     * Buffer between the scheduler and the producer. Updates queue in memory and spill to memory-mapped segment
+     * files when the queue is full or the broker is failing; a single dispatcher publishes them in the order they
+     * were accepted once the broker is reachable.
+     */
+    @Data
+    public static class Outbox {
+
+        private boolean enabled = true;
+
+        /** Updates held in memory before further ones are spilled to disk. */
+        private int memoryCapacity = 10_000;
+
+        /** Directory for spill segments; only created once something is spilled. */
+        private String directory = "data/outbox";
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /** Spilled bytes awaiting publication at most; beyond it updates are dropped. */
+        private DataSize maxSpillSize = DataSize.ofGigabytes(1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the live event polling scheduler ({@code events.scheduler.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.scheduler")
+public class SchedulerProperties {
+
+    /**
+     * How the live events of a single tick are fetched.
+     */
+    public enum ExecutionMode {
+        /** One event after another on the scheduling thread. */
+        SEQUENTIAL,
+        /** Fanned out over a dedicated pool capped at {@code maxConcurrency}. */
+        CONCURRENT
+    }
+
+    /**
+     * Which live events are fetched on a tick.
+     */
+    public enum PollingMode {
+        /** Every live event, on every tick. */
+        FULL_SCAN,
+        /** Only events whose own poll interval has elapsed, see {@link Adaptive}. */
+        ADAPTIVE
+    }
+
+    /** Interval between tick starts; also read by {@code @Scheduled} through {@code events.scheduler.fixed-rate-ms}. */
+    private long fixedRateMs = 10_000;
+
+    private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+    /** Upper bound on upstream fetches in flight at once in CONCURRENT mode. */
+    private int maxConcurrency = 16;
+
+    /** Time budget for a tick; events not fetched by then are reported and skipped. */
+    private Duration tickDeadline = Duration.ofSeconds(8);
+
+    /**
+     * Number of live events fetched per upstream request. 1 uses the per-event endpoint; larger values group
+     * events and use the multi-event endpoint, one round trip per group.
+     */
+    private int batchSize = 1;
+
+    private PollingMode pollingMode = PollingMode.FULL_SCAN;
+
+    /**
+     * Share of fetched events whose details are logged at INFO; the rest are only logged at DEBUG. Every tick
+     * logs one summary line regardless.
+     */
+    private double eventLogSampleRate = 0.01;
+
+    private final Adaptive adaptive = new Adaptive();
+
+    /**
+     * Per-event poll intervals used in ADAPTIVE polling mode. An event is polled again after
+     * {@code minInterval} when its score changed, otherwise its interval is multiplied by
+     * {@code backoffMultiplier} up to {@code maxInterval}. The scheduler tick rate
+     * ({@code events.scheduler.fixed-rate-ms}) should be no coarser than {@code minInterval}.
+     */
+    @Data
+    public static class Adaptive {
+
+        private Duration minInterval = Duration.ofSeconds(1);
+
+        private Duration maxInterval = Duration.ofSeconds(60);
+
+        private double backoffMultiplier = 2.0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for pushing score updates to SSE subscribers ({@code events.stream.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.stream")
+public class StreamProperties {
+
+    /** Concurrent subscribers accepted by this instance; further subscriptions are refused with 503. */
+    private int maxSubscribers = 10_000;
+
+    /**
+     * Events with an undelivered update a subscriber may have at once. Updates of the same event replace each
+     * other, so this only fills up for subscribers of many events; beyond it the oldest pending event is dropped.
+     */
+    private int maxPendingPerSubscriber = 1_000;
+
+    /**
+     * Threads writing updates to subscribers. A write to a stalled client holds one of them until the server's
+     * connection timeout ends it; only one write per client is in progress at a time.
+     */
+    private int dispatcherThreads = 8;
+
+    /**
+     * How long a write to a subscriber may take before the subscriber is dropped. Checked with every heartbeat,
+     * so a stalled client is dropped within {@code writeTimeout} plus {@code heartbeatInterval}.
+     */
+    private Duration writeTimeout = Duration.ofSeconds(10);
+
+    /** Interval of keep-alive comments, which also detect clients that went away. */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /** Lifetime of a subscription before the client has to reconnect; zero keeps it open indefinitely. */
+    private Duration subscriptionTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,87 @@
+package com.example.restcalls.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Settings for the client that fetches event data from the upstream score API ({@code events.upstream.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "events.upstream")
+public class UpstreamProperties {
+
+    /** Base URL of the score API; event data is read from {@code {baseUrl}/event/{eventId}}. */
+    private String baseUrl = "http://localhost:8080/events/mockapi";
+
+    /** Preferred protocol; HTTP/2 falls back to HTTP/1.1 when the server does not support it. */
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /** Time allowed for the upstream to answer a single request. */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Send the entity tag of the last response seen for an event as {@code If-None-Match}, so that an unchanged
+     * event is answered with 304 Not Modified and no body. Only single-event requests are conditional.
+     */
+    private boolean conditionalRequests = true;
+
+    private final Limiter limiter = new Limiter();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final Cache cache = new Cache();
+
+    /**
+     * AIMD limit on concurrent upstream calls; calls over the limit are rejected immediately.
+     */
+    @Data
+    public static class Limiter {
+
+        private int initialLimit = 20;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 200;
+
+        /** Calls slower than this shrink the limit like failures do. */
+        private Duration latencyThreshold = Duration.ofSeconds(1);
+
+        /** Factor applied to the limit on failure or slow response. */
+        private double backoffRatio = 0.9;
+    }
+
+    /**
+     * Stops calling the upstream once it is clearly down and probes for recovery.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /** Consecutive failed calls after which the circuit opens. */
+        private int failureThreshold = 5;
+
+        /** How long calls fail fast before the upstream is probed again. */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /** Successful probe calls needed to close the circuit again. */
+        private int halfOpenProbes = 1;
+    }
+
+    /**
+     * Short-lived cache of fetched scores. Concurrent fetches of the same event always share one upstream call;
+     * the result is then reused by fetches within {@code ttl}.
+     */
+    @Data
+    public static class Cache {
+
+        /** How long a fetched score is served without calling the upstream again; zero disables caching. */
+        private Duration ttl = Duration.ofMillis(500);
+
+        /** Events cached at most; beyond it the least valuable entries are evicted (W-TinyLFU). */
+        private long maximumSize = 100_000;
+    }
+}
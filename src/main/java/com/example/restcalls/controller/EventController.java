@@ -1,14 +1,26 @@
 package com.example.restcalls.controller;
 
+import com.example.restcalls.dto.BatchStatusUpdateResult;
 import com.example.restcalls.dto.EventStatusUpdate;
+import com.example.restcalls.metrics.EventMetrics;
 import com.example.restcalls.service.EventService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.dto.Score;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Random;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,27 +30,59 @@ import lombok.RequiredArgsConstructor;
 public class EventController {
 
     private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+    private static final long MOCK_SCORE_PERIOD_MILLIS = 30_000;
 
     private final EventService eventService;
+    private final ObjectMapper objectMapper;
+    private final EventMetrics eventMetrics;
 
     // Mock API endpoint
     @GetMapping("/mockapi/event/{eventId}")
     public ResponseEntity<MockApiResponse> getMockEventData(@PathVariable String eventId) {
-        logger.info("Mock API endpoint /mockapi/event/{} called.", eventId);
+        logger.debug("Mock API endpoint /mockapi/event/{} called.", eventId);
 
         if (eventId == null || eventId.isEmpty()) {
             logger.warn("Mock API called with null or empty eventId.");
             return ResponseEntity.badRequest().build();
         }
 
-        // Simulate fetching data for the eventId
-        // For now, returning a random score
-        Random random = new Random();
-        String randomScore = random.nextInt(5) + ":" + random.nextInt(5);
-        MockApiResponse response = new MockApiResponse(eventId, randomScore);
+        MockApiResponse response = mockEventData(eventId);
 
-        logger.info("Returning mock response for eventId {}: Score {}", eventId, response.getCurrentScore());
-        return ResponseEntity.ok(response);
+        logger.debug("Returning mock response for eventId {}: Score {}", eventId, response.getCurrentScore());
+        // Spring answers 304 Not Modified without a body when the request's If-None-Match matches the ETag
+        return ResponseEntity.ok().eTag(entityTag(response)).body(response);
+    }
+
+    // Mock API endpoint returning several events per round trip, like the batch endpoints of real score providers
+    @GetMapping("/mockapi/events")
+    public ResponseEntity<List<MockApiResponse>> getMockEventDataBatch(@RequestParam(name = "ids", required = false) List<String> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            logger.warn("Mock batch API called without eventIds.");
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<MockApiResponse> responses = new ArrayList<>(eventIds.size());
+        for (String eventId : eventIds) {
+            if (eventId != null && !eventId.isEmpty()) {
+                responses.add(mockEventData(eventId));
+            }
+        }
+        logger.debug("Mock batch API returning {} events for {} requested ids.", responses.size(), eventIds.size());
+        return ResponseEntity.ok(responses);
+    }
+
+    private static MockApiResponse mockEventData(String eventId) {
+        // Simulate fetching data for the eventId: a random score that, like a real one, stays the same for a
+        // while. Each event's score changes every MOCK_SCORE_PERIOD_MILLIS, at an offset of its own.
+        int seed = eventId.hashCode();
+        long period = (System.currentTimeMillis() + Math.floorMod(seed, MOCK_SCORE_PERIOD_MILLIS)) / MOCK_SCORE_PERIOD_MILLIS;
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + period);
+        return new MockApiResponse(eventId, Score.format(random.nextInt(5), random.nextInt(5)));
+    }
+
+    // The version of a mock event is its score
+    private static String entityTag(MockApiResponse response) {
+        return "\"" + Long.toHexString(Score.parse(response.getCurrentScore())) + "\"";
     }
 
     @PostMapping("/status")
@@ -50,7 +94,7 @@ public class EventController {
 
         String eventId = eventStatusUpdate.getEventId();
         boolean isLive = eventStatusUpdate.isLive();
-        logger.info("Received request to update event status: eventId='{}', new status='{}'", eventId, isLive ? "LIVE" : "NOT LIVE");
+        logger.debug("Received request to update event status: eventId='{}', new status='{}'", eventId, isLive ? "LIVE" : "NOT LIVE");
 
         if (eventId == null || eventId.isEmpty()) {
             logger.warn("Received event status update with null or empty eventId. Request: {}", eventStatusUpdate);
@@ -58,7 +102,79 @@ public class EventController {
         }
 
         eventService.updateEventStatus(eventId, isLive);
-        logger.info("Event status updated successfully for eventId: {}. New status: {}", eventId, isLive ? "LIVE" : "NOT LIVE");
+        eventMetrics.recordStatusUpdate();
+        logger.debug("Event status updated successfully for eventId: {}. New status: {}", eventId, isLive ? "LIVE" : "NOT LIVE");
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Applies many status updates in one request. The body is either a JSON array of status updates or an
+     * NDJSON stream of them; it is read token by token and every valid item is applied as soon as it has been
+     * parsed, so the batch is never held in memory. Invalid items are reported back by position. If the body
+     * stops being valid JSON, the items before that point remain applied and 400 is returned.
+     */
+    @PostMapping(value = "/status/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchStatusUpdateResult> updateEventStatusBatch(InputStream body) throws IOException {
+        BatchStatusUpdateResult result = new BatchStatusUpdateResult();
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                applyBatchItem(parser, index, result);
+                index++;
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            eventMetrics.recordBatchStatusUpdates(result.getAccepted());
+            logger.warn("Malformed status batch at item {} after {} accepted updates: {}", index, result.getAccepted(), e.getOriginalMessage());
+            // Listed even beyond the limit, since it explains the 400
+            result.setRejectedCount(result.getRejectedCount() + 1);
+            result.getRejected().add(new BatchStatusUpdateResult.Rejection(index, null, "Malformed JSON: " + e.getOriginalMessage()));
+            return ResponseEntity.badRequest().body(result);
+        }
+
+        eventMetrics.recordBatchStatusUpdates(result.getAccepted());
+        logger.info("Status batch processed: {} updates applied, {} rejected.", result.getAccepted(), result.getRejectedCount());
+        return ResponseEntity.ok(result);
+    }
+
+    private void applyBatchItem(JsonParser parser, int index, BatchStatusUpdateResult result) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            result.addRejection(new BatchStatusUpdateResult.Rejection(index, null, "Item is not a JSON object"));
+            return;
+        }
+
+        String eventId = null;
+        boolean isLive = false;
+        String problem = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("eventId".equals(field) && value == JsonToken.VALUE_STRING) {
+                eventId = parser.getText();
+            } else if ("eventId".equals(field) && value != JsonToken.VALUE_NULL) {
+                problem = "eventId must be a string";
+            } else if ("live".equals(field) && value.isBoolean()) {
+                isLive = value == JsonToken.VALUE_TRUE;
+            } else if ("live".equals(field)) {
+                problem = "live must be a boolean";
+            }
+            parser.skipChildren();
+        }
+
+        if (problem == null && (eventId == null || eventId.isEmpty())) {
+            problem = "eventId is missing or empty";
+        }
+        if (problem != null) {
+            result.addRejection(new BatchStatusUpdateResult.Rejection(index, eventId, problem));
+            return;
+        }
+        eventService.updateEventStatus(eventId, isLive);
+        result.setAccepted(result.getAccepted() + 1);
+    }
 }
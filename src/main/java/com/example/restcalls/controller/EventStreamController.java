@@ -0,0 +1,41 @@
+package com.example.restcalls.controller;
+
+import com.example.restcalls.stream.ScoreUpdateBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Server-Sent Events channel for score updates, so clients are pushed new scores instead of polling for them.
+ * Each update is a {@code score} event whose id is the event id and whose data is the same JSON as published
+ * to Kafka.
+ */
+@RestController
+@RequestMapping("/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamController.class);
+
+    private final ScoreUpdateBroadcaster scoreUpdateBroadcaster;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(name = "ids", required = false) List<String> eventIds) {
+        List<String> ids = eventIds == null ? List.of()
+                : eventIds.stream().filter(id -> id != null && !id.isEmpty()).toList();
+        return scoreUpdateBroadcaster.subscribe(ids)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> {
+                    logger.warn("Refused stream subscription: {} subscribers already connected.",
+                            scoreUpdateBroadcaster.getSubscriberCount());
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                });
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.restcalls.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStatusUpdateResult {
+
+    /** Rejections listed at most; further ones are only counted, so a large invalid batch is not held in memory. */
+    public static final int MAX_LISTED_REJECTIONS = 100;
+
+    private int accepted;
+    /** All rejected items, including those beyond {@link #MAX_LISTED_REJECTIONS}. */
+    private int rejectedCount;
+    /** The first {@link #MAX_LISTED_REJECTIONS} rejected items. */
+    private List<Rejection> rejected = new ArrayList<>();
+
+    public void addRejection(Rejection rejection) {
+        rejectedCount++;
+        if (rejected.size() < MAX_LISTED_REJECTIONS) {
+            rejected.add(rejection);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+
+        /** Zero-based position of the item in the submitted array or NDJSON stream. */
+        private int index;
+        private String eventId;
+        private String reason;
+
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.restcalls.dto;
+
+/**
+ * Compact form of a {@code "home:away"} score: both sides packed into one {@code long}, so scores can be kept
+ * and compared without holding on to strings. {@link MockApiResponse} still carries the score as a string, which
+ * is what goes over the wire.
+ */
+public final class Score {
+
+    /** Result of parsing a string that is not a {@code "home:away"} score of non-negative ints. */
+    public static final long UNPARSEABLE = -1L;
+
+    private static final int CACHED = 16;
+    private static final String[] FORMATTED = new String[CACHED * CACHED];
+
+    static {
+        for (int home = 0; home < CACHED; home++) {
+            for (int away = 0; away < CACHED; away++) {
+                FORMATTED[home * CACHED + away] = home + ":" + away;
+            }
+        }
+    }
+
+    private Score() {
+    }
+
+    public static long pack(int home, int away) {
+        return ((long) home << 32) | (away & 0xFFFFFFFFL);
+    }
+
+    public static int home(long score) {
+        return (int) (score >>> 32);
+    }
+
+    public static int away(long score) {
+        return (int) score;
+    }
+
+    /**
+     * Parses {@code "home:away"} without allocating.
+     *
+     * @return the packed score, or {@link #UNPARSEABLE}
+     */
+    public static long parse(CharSequence score) {
+        if (score == null) {
+            return UNPARSEABLE;
+        }
+        int separator = -1;
+        long home = 0;
+        long away = 0;
+        int length = score.length();
+        for (int i = 0; i < length; i++) {
+            char c = score.charAt(i);
+            if (c == ':' && separator < 0) {
+                separator = i;
+            } else if (c >= '0' && c <= '9') {
+                if (separator < 0) {
+                    home = home * 10 + (c - '0');
+                } else {
+                    away = away * 10 + (c - '0');
+                }
+                if (home > Integer.MAX_VALUE || away > Integer.MAX_VALUE) {
+                    return UNPARSEABLE;
+                }
+            } else {
+                return UNPARSEABLE;
+            }
+        }
+        if (separator <= 0 || separator == length - 1) {
+            return UNPARSEABLE;
+        }
+        return pack((int) home, (int) away);
+    }
+
+    /**
+     * Formats a score as {@code "home:away"}. Scores of up to 15 per side come from a table and do not allocate.
+     */
+    public static String format(int home, int away) {
+        if (home >= 0 && home < CACHED && away >= 0 && away < CACHED) {
+            return FORMATTED[home * CACHED + away];
+        }
+        return home + ":" + away;
+    }
+
+    public static String format(long score) {
+        return format(home(score), away(score));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.restcalls.expiry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Deadlines of keys, kept in a hierarchical timing wheel so that scheduling, rescheduling and cancelling a key
+ * cost O(1) however many keys are tracked, and advancing the clock costs O(1) per tick plus the keys that come due.
+ * <p>
+ * Time is counted in ticks. Level 0 has one slot per tick for the next {@code wheelSize} ticks; each further
+ * level has slots {@code wheelSize} times as wide. A key sits in the slot of the lowest level whose range covers
+ * its deadline, and whenever the lower level wraps around, the next slot of the level above is emptied into the
+ * levels below it. Deadlines beyond the top level are parked at its far end and placed again when they come up.
+ * <p>
+ * Rescheduling to a later deadline only updates the key's entry; the entry is moved when its old slot comes up.
+ * Cancelling drops the key from the index and leaves the entry behind to be discarded at that point. So a key
+ * refreshed on every poll is moved at most once per slot span, not once per refresh.
+ * <p>
+ * Not thread-safe; {@link LiveEventExpiry} serializes access.
+ */
+class HierarchicalTimingWheel<K> {
+
+    private final int slotBits;
+    private final int mask;
+    private final int levels;
+    private final long span;
+    private final Entry<K>[][] slots;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    /** The next tick to be processed. */
+    private long currentTick;
+
+    /**
+     * @param wheelSize slots per level, a power of two
+     * @param levels    levels of the wheel; together they cover {@code wheelSize ^ levels} ticks
+     */
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(int wheelSize, int levels, long startTick) {
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two, got " + wheelSize);
+        }
+        if (levels < 1 || (long) Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+            throw new IllegalArgumentException("Unsupported number of levels: " + levels);
+        }
+        this.slotBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        this.span = 1L << (slotBits * levels);
+        this.slots = new Entry[levels][wheelSize];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Sets the deadline of the key, replacing any earlier one. A deadline that has already passed comes due on
+     * the next {@link #advanceTo}.
+     */
+    void schedule(K key, long deadlineTick) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null && deadlineTick >= entry.deadline) {
+            entry.deadline = deadlineTick;
+            return;
+        }
+        // New key, or a deadline earlier than the slot the key sits in: the old entry is left behind as stale
+        entry = new Entry<>(key, deadlineTick);
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    /**
+     * @return whether the key was scheduled
+     */
+    boolean cancel(K key) {
+        return entries.remove(key) != null;
+    }
+
+    boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Processes every tick up to and including {@code tick}, handing each key whose deadline has been reached
+     * to {@code onExpired}. Expired keys are no longer scheduled when it is called.
+     */
+    void advanceTo(long tick, Consumer<K> onExpired) {
+        while (currentTick <= tick) {
+            int index = (int) (currentTick & mask);
+            if (index == 0) {
+                cascade(1);
+            }
+            Entry<K> entry = slots[0][index];
+            slots[0][index] = null;
+            while (entry != null) {
+                Entry<K> next = entry.next;
+                entry.next = null;
+                if (entries.get(entry.key) == entry) {
+                    if (entry.deadline <= currentTick) {
+                        entries.remove(entry.key);
+                        onExpired.accept(entry.key);
+                    } else {
+                        place(entry);
+                    }
+                }
+                entry = next;
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Empties the current slot of {@code level} into the levels below, once the level beneath it has wrapped around.
+     */
+    private void cascade(int level) {
+        if (level == levels) {
+            return;
+        }
+        int index = (int) ((currentTick >>> (slotBits * level)) & mask);
+        Entry<K> entry = slots[level][index];
+        slots[level][index] = null;
+        while (entry != null) {
+            Entry<K> next = entry.next;
+            entry.next = null;
+            if (entries.get(entry.key) == entry) {
+                place(entry);
+            }
+            entry = next;
+        }
+        if (index == 0) {
+            cascade(level + 1);
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long deadline = Math.max(entry.deadline, currentTick);
+        long delta = deadline - currentTick;
+        if (delta >= span) {
+            deadline = currentTick + span - 1;
+            delta = span - 1;
+        }
+        int level = 0;
+        while (delta >>> (slotBits * (level + 1)) != 0) {
+            level++;
+        }
+        int index = (int) ((deadline >>> (slotBits * level)) & mask);
+        entry.next = slots[level][index];
+        slots[level][index] = entry;
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+        private long deadline;
+        private Entry<K> next;
+
+        private Entry(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
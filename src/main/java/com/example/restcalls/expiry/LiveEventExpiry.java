@@ -0,0 +1,209 @@
+package com.example.restcalls.expiry;
+
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ExpiryProperties;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.EventStatusListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Demotes live events that have shown no activity for {@code events.expiry.ttl}, so that finished events the
+ * feed never marked as not live stop being polled.
+ * <p>
+ * Activity is a status update marking the event live, or a fetch that yields a score different from the last one
+ * seen for the event (see {@link #recordScore}); either moves the event's deadline to {@code ttl} from now. Deadlines are kept in a
+ * {@link HierarchicalTimingWheel}, which a background thread advances every {@code events.expiry.tick}. Expired
+ * events are marked not live through {@link EventService}, so listeners and persistence see the change like any
+ * other status update.
+ * <p>
+ * In cluster mode only the owner of an event fetches it, so only the owner expires it. On the other instances
+ * its deadline is pushed back instead, which gives an instance taking over the event a full {@code ttl}.
+ * <p>
+ * Events restored from persistence are given a full {@code ttl} once the application context is up.
+ */
+@Component
+@Lazy(false)
+public class LiveEventExpiry implements EventStatusListener, SmartInitializingSingleton, DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEventExpiry.class);
+
+    static final int WHEEL_SIZE = 64;
+    // 64^4 ticks: about 194 days at the default tick of one second
+    static final int WHEEL_LEVELS = 4;
+
+    private final EventService eventService;
+    private final ShardOwnership shardOwnership;
+    private final Duration ttl;
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final HierarchicalTimingWheel<String> wheel;
+    private final Map<String, String> lastScores = new ConcurrentHashMap<>();
+    private final LongAdder expired = new LongAdder();
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public LiveEventExpiry(EventService eventService, ShardOwnership shardOwnership, ExpiryProperties properties) {
+        this(eventService, shardOwnership, properties, System::nanoTime);
+    }
+
+    LiveEventExpiry(EventService eventService, ShardOwnership shardOwnership, ExpiryProperties properties,
+                    LongSupplier nanoClock) {
+        this.eventService = eventService;
+        this.shardOwnership = shardOwnership;
+        this.ttl = properties.getTtl();
+        this.ttlNanos = ttl.toNanos();
+        this.tickNanos = Math.max(1, properties.getTick().toNanos());
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.wheel = new HierarchicalTimingWheel<>(WHEEL_SIZE, WHEEL_LEVELS, 0);
+    }
+
+    public boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String eventId : eventService.getLiveEvents().keySet()) {
+            refresh(eventId);
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("live-event-expiry-"));
+        ticker.scheduleAtFixedRate(this::expireDue, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        logger.info("Live events expire after {} without activity.", ttl);
+    }
+
+    @Override
+    public void destroy() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Moves the deadline of a live event to {@code ttl} from now.
+     */
+    public void refresh(String eventId) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (wheel) {
+            wheel.schedule(eventId, nextDeadline());
+        }
+    }
+
+    /**
+     * Refreshes the event if its fetched score differs from the last one recorded. Called by the scheduler for
+     * every score it fetches, before deciding whether to publish it: a finished event keeps answering with its
+     * final score, so unchanged scores do not count, whether they are re-published as a heartbeat or came with a
+     * 304 Not Modified.
+     */
+    public void recordScore(String eventId, String score) {
+        if (isEnabled() && !Objects.equals(lastScores.put(eventId, score), score)) {
+            refresh(eventId);
+        }
+    }
+
+    @Override
+    public void onStatusUpdated(String eventId, boolean live) {
+        if (live) {
+            refresh(eventId);
+        } else if (isEnabled()) {
+            lastScores.remove(eventId);
+            synchronized (wheel) {
+                wheel.cancel(eventId);
+            }
+        }
+    }
+
+    /**
+     * Demotes the events whose deadline has passed. Runs on the expiry thread.
+     */
+    void expireDue() {
+        List<String> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(tickAt(nanoClock.getAsLong()), due::add);
+        }
+        int demoted = 0;
+        for (String eventId : due) {
+            // Checked again while the event is locked, so that a refresh right before the demotion keeps it live.
+            // Status updates lock the event first and the wheel second; so does this, hence no wheel lock around it.
+            if (eventService.markNotLiveIf(eventId, () -> {
+                synchronized (wheel) {
+                    if (wheel.contains(eventId)) {
+                        return false;
+                    }
+                    if (!shardOwnership.owns(eventId)) {
+                        wheel.schedule(eventId, nextDeadline());
+                        return false;
+                    }
+                    return true;
+                }
+            })) {
+                demoted++;
+            } else {
+                // Not live any more, but a late fetch recorded a score for it
+                synchronized (wheel) {
+                    if (!wheel.contains(eventId)) {
+                        lastScores.remove(eventId);
+                    }
+                }
+            }
+        }
+        if (demoted > 0) {
+            expired.add(demoted);
+            logger.info("Marked {} live events as not live after {} without activity.", demoted, ttl);
+        }
+    }
+
+    public int getTrackedCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("events.expired", this, LiveEventExpiry::getExpiredCount)
+                .description("Live events marked as not live because they showed no activity for the configured TTL")
+                .register(registry);
+    }
+
+    private long nextDeadline() {
+        return tickAt(nanoClock.getAsLong() + ttlNanos + tickNanos - 1);
+    }
+
+    private long tickAt(long nanos) {
+        return Math.max(0, nanos - origin) / tickNanos;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.restcalls.ingress;
+
+import com.example.restcalls.config.IngressProperties;
+import com.example.restcalls.dto.EventStatusUpdate;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.logging.RateLimitedLogger;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies status updates consumed from Kafka ({@code events.ingress.kafka.*}), as an alternative to posting
+ * them to {@code /events/status}. Each record is keyed by event id and carries the same JSON as the REST body;
+ * an event id missing from the body is taken from the key.
+ * <p>
+ * Records arrive in batches. Within a batch only the last status of each event counts, and the batch is
+ * applied with {@link EventService#updateEventStatuses(Map)}, which skips updates that change nothing. The
+ * batch's offsets are committed only after it has been applied, so a crash in between redelivers it, and
+ * applying it again changes no status. A {@code live} status still counts as activity for {@link LiveEventExpiry}
+ * when the event already was live, as it does on the REST endpoints. Malformed records are logged and skipped
+ * rather than blocking their partition.
+ */
+@Component
+// Created eagerly even with lazy initialization, since nothing else refers to it
+@Lazy(false)
+@ConditionalOnProperty(prefix = "events.ingress.kafka", name = "enabled", havingValue = "true")
+public class KafkaStatusIngress {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaStatusIngress.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(KafkaStatusIngress.class, Duration.ofSeconds(10));
+
+    private final EventService eventService;
+    private final ObjectMapper objectMapper;
+    private final EventMetrics eventMetrics;
+    private final LiveEventExpiry liveEventExpiry;
+    private final String topic;
+
+    public KafkaStatusIngress(EventService eventService, ObjectMapper objectMapper, EventMetrics eventMetrics,
+                              LiveEventExpiry liveEventExpiry, IngressProperties ingressProperties) {
+        this.eventService = eventService;
+        this.objectMapper = objectMapper;
+        this.eventMetrics = eventMetrics;
+        this.liveEventExpiry = liveEventExpiry;
+        this.topic = ingressProperties.getKafka().getTopic();
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    @KafkaListener(id = "status-ingress", idIsGroup = false, topics = "#{__listener.topic}",
+            containerFactory = StatusIngressConfiguration.CONTAINER_FACTORY)
+    public void onStatusRecords(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        apply(records);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Applies a batch of status records.
+     *
+     * @return the number of events whose status changed
+     */
+    int apply(List<ConsumerRecord<String, byte[]>> records) {
+        // Last status per event, in the order the events were last updated
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        int rejected = 0;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            EventStatusUpdate update = parse(record);
+            if (update == null) {
+                rejected++;
+                continue;
+            }
+            statuses.remove(update.getEventId());
+            statuses.put(update.getEventId(), update.isLive());
+        }
+
+        int changed = eventService.updateEventStatuses(statuses);
+        // Events that went live were refreshed as listeners; those that already were live are refreshed here
+        statuses.forEach((eventId, live) -> {
+            if (live) {
+                liveEventExpiry.refresh(eventId);
+            }
+        });
+        eventMetrics.recordKafkaStatusUpdates(changed);
+        logger.debug("Status records processed: {} received, {} statuses changed, {} rejected.",
+                records.size(), changed, rejected);
+        return changed;
+    }
+
+    private EventStatusUpdate parse(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            reject(record, "no value");
+            return null;
+        }
+        EventStatusUpdate update;
+        try {
+            update = objectMapper.readValue(record.value(), EventStatusUpdate.class);
+        } catch (IOException e) {
+            reject(record, "malformed JSON: " + e.getMessage());
+            return null;
+        }
+        if (update.getEventId() == null || update.getEventId().isEmpty()) {
+            update.setEventId(record.key());
+        }
+        if (update.getEventId() == null || update.getEventId().isEmpty()) {
+            reject(record, "no eventId");
+            return null;
+        }
+        return update;
+    }
+
+    private static void reject(ConsumerRecord<String, byte[]> record, String reason) {
+        rateLimitedLogger.warn("Skipping status record {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), reason);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.restcalls.ingress;
+
+import com.example.restcalls.config.IngressProperties;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener containers for {@link KafkaStatusIngress}: batch delivery, raw values (so that a malformed record can
+ * be skipped rather than failing its batch) and offsets committed only when the listener acknowledges a batch.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "events.ingress.kafka", name = "enabled", havingValue = "true")
+public class StatusIngressConfiguration {
+
+    public static final String CONTAINER_FACTORY = "statusIngressContainerFactory";
+
+    @Bean(CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> statusIngressContainerFactory(
+            ConsumerFactory<?, ?> consumerFactory, IngressProperties ingressProperties) {
+        IngressProperties.Kafka kafka = ingressProperties.getKafka();
+        // Starts from spring.kafka.consumer.* so that connection and security settings are shared
+        Map<String, Object> consumerProperties = new HashMap<>(consumerFactory.getConfigurationProperties());
+        consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, kafka.getGroupId());
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafka.getMaxPollRecords());
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // A new group replays the topic, so an instance starts from every status still retained
+        consumerProperties.putIfAbsent(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProperties,
+                new StringDeserializer(), new ByteArrayDeserializer()));
+        factory.setBatchListener(true);
+        factory.setConcurrency(kafka.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
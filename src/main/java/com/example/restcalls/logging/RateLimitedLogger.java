@@ -0,0 +1,81 @@
+package com.example.restcalls.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs each message format at most once per interval. When the same upstream or broker failure hits every
+ * event of a tick, this keeps it to one line, which then reports how many similar lines were suppressed since
+ * the previous one. Messages are told apart by their format string, not by their arguments.
+ */
+public class RateLimitedLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RateLimitedLogger(Class<?> type, Duration interval) {
+        this(LoggerFactory.getLogger(type), interval, System::nanoTime);
+    }
+
+    RateLimitedLogger(Logger logger, Duration interval, LongSupplier nanoClock) {
+        this.logger = logger;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public void warn(String format, Object... arguments) {
+        log(Level.WARN, format, arguments);
+    }
+
+    public void error(String format, Object... arguments) {
+        log(Level.ERROR, format, arguments);
+    }
+
+    private void log(Level level, String format, Object[] arguments) {
+        if (!logger.isEnabledForLevel(level)) {
+            return;
+        }
+        long suppressed = windows.computeIfAbsent(format, key -> new Window()).tryLog(nanoClock.getAsLong(), intervalNanos);
+        if (suppressed < 0) {
+            return;
+        }
+        if (suppressed == 0) {
+            logger.atLevel(level).log(format, arguments);
+        } else {
+            Object[] withCount = Arrays.copyOf(arguments, arguments.length + 1);
+            withCount[arguments.length] = suppressed;
+            logger.atLevel(level).log(format + " ({} similar messages suppressed)", withCount);
+        }
+    }
+
+    private static final class Window {
+
+        private boolean logged;
+        private long lastLogged;
+        private long suppressed;
+
+        /**
+         * @return the number of messages suppressed since the last one logged, or -1 if this one is suppressed too
+         */
+        synchronized long tryLog(long now, long intervalNanos) {
+            if (logged && now - lastLogged < intervalNanos) {
+                suppressed++;
+                return -1;
+            }
+            logged = true;
+            lastLogged = now;
+            long count = suppressed;
+            suppressed = 0;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.restcalls.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the polling and publishing hot paths. Every meter is registered up front, so recording is a
+ * field access plus the meter's own update, without tag lookups or allocation per call. Latencies are taken
+ * by callers with {@link System#nanoTime()}.
+ */
+@Component
+public class EventMetrics {
+
+    /**
+     * How an upstream request ended, from the scheduler's point of view.
+     */
+    public enum FetchOutcome {
+        SUCCESS,
+        /** Answered without event data. */
+        EMPTY,
+        /** Refused locally by the circuit breaker or the concurrency limiter. */
+        REJECTED,
+        ERROR
+    }
+
+    private final Timer tickDuration;
+    private final Timer tickLag;
+    private final Timer[] singleFetches;
+    private final Timer[] batchFetches;
+    private final Timer serialization;
+    private final Timer publishAcknowledged;
+    private final Timer publishFailed;
+    private final Counter publishDropped;
+    private final Counter statusUpdates;
+    private final Counter batchStatusUpdates;
+    private final Counter kafkaStatusUpdates;
+    // Only touched by the scheduling thread; ticks never overlap
+    private boolean tickStarted;
+    private long expectedTickStart;
+
+    public EventMetrics(MeterRegistry registry) {
+        this.tickDuration = Timer.builder("events.scheduler.tick.duration")
+                .description("Duration of a scheduler run")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.tickLag = Timer.builder("events.scheduler.tick.lag")
+                .description("Delay of a scheduler run's start behind its fixed-rate schedule")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.singleFetches = fetchTimers(registry, "single");
+        this.batchFetches = fetchTimers(registry, "batch");
+        this.serialization = Timer.builder("events.publisher.serialization")
+                .description("Time to serialize a score update")
+                .register(registry);
+        this.publishAcknowledged = publishTimer(registry, "acknowledged");
+        this.publishFailed = publishTimer(registry, "failed");
+        this.publishDropped = Counter.builder("events.publisher.dropped")
+                .description("Score updates dropped because too many sends awaited acknowledgement")
+                .register(registry);
+        this.statusUpdates = statusUpdateCounter(registry, "single");
+        this.batchStatusUpdates = statusUpdateCounter(registry, "batch");
+        this.kafkaStatusUpdates = statusUpdateCounter(registry, "kafka");
+    }
+
+    private static Timer[] fetchTimers(MeterRegistry registry, String request) {
+        Timer[] timers = new Timer[FetchOutcome.values().length];
+        for (FetchOutcome outcome : FetchOutcome.values()) {
+            timers[outcome.ordinal()] = Timer.builder("events.upstream.fetch")
+                    .description("Latency of upstream score requests")
+                    .tag("request", request)
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        return timers;
+    }
+
+    private static Timer publishTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("events.publisher.publish")
+                .description("Time from handing a score update to Kafka until it was acknowledged or given up on, retries included")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter statusUpdateCounter(MeterRegistry registry, String endpoint) {
+        return Counter.builder("events.status.updates")
+                .description("Event status updates applied")
+                .tag("endpoint", endpoint)
+                .register(registry);
+    }
+
+    /**
+     * Marks the start of a scheduler run and records how far it lags behind the fixed-rate schedule, which is
+     * anchored at the first run.
+     *
+     * @return the start time, to be passed to {@link #recordTickEnd(long)}
+     */
+    public long recordTickStart(long fixedRateMillis) {
+        long start = System.nanoTime();
+        recordTickStart(start, TimeUnit.MILLISECONDS.toNanos(fixedRateMillis));
+        return start;
+    }
+
+    void recordTickStart(long startNanos, long periodNanos) {
+        if (!tickStarted) {
+            tickStarted = true;
+            expectedTickStart = startNanos;
+        }
+        tickLag.record(Math.max(0, startNanos - expectedTickStart), TimeUnit.NANOSECONDS);
+        expectedTickStart += periodNanos;
+    }
+
+    public void recordTickEnd(long startNanos) {
+        tickDuration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFetch(boolean batch, FetchOutcome outcome, long startNanos) {
+        Timer[] timers = batch ? batchFetches : singleFetches;
+        timers[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSerialization(long startNanos) {
+        serialization.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPublish(boolean acknowledged, long startNanos) {
+        (acknowledged ? publishAcknowledged : publishFailed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPublishDropped() {
+        publishDropped.increment();
+    }
+
+    public void recordStatusUpdate() {
+        statusUpdates.increment();
+    }
+
+    public void recordBatchStatusUpdates(int count) {
+        batchStatusUpdates.increment(count);
+    }
+
+    /**
+     * Records status updates applied from Kafka. Only updates that changed a status count, so that
+     * redelivered records are not counted twice.
+     */
+    public void recordKafkaStatusUpdates(int count) {
+        kafkaStatusUpdates.increment(count);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.restcalls.metrics;
+
+import com.example.restcalls.service.EventService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the number of live events, read from {@link EventService} only when the registry is scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class LiveEventsGauge implements MeterBinder {
+
+    private final EventService eventService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("events.live", eventService, EventService::getLiveEventCount)
+                .description("Events currently marked live")
+                .register(registry);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.restcalls.outbox;
+
+/**
+ * An update accepted by the outbox, already serialized.
+ *
+ * @param acceptedNanos when it was accepted, or read back from the spill; the publish latency is measured from here
+ */
+record OutboxRecord(String topic, String key, byte[] payload, long acceptedNanos) {
+}
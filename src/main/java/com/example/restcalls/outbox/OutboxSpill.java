@@ -0,0 +1,294 @@
+package com.example.restcalls.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Append-only spill of the outbox, kept in memory-mapped segment files of a fixed size. Records are read back
+ * in the order they were appended. A record that has been read stays on disk until it is {@linkplain #release
+ * released}, which the outbox does once the broker acknowledged it; a segment is deleted once every record in
+ * it has been released.
+ * <p>
+ * A segment starts with {@code [magic:4][readOffset:4]}, where {@code readOffset} is where reading resumes
+ * after a restart. It only moves past records released in order, so a record read but not yet acknowledged
+ * when the process stops is read again after the restart. Records follow as {@code [length:4][topicLength:2][topic][keyLength:2][key][payload]}; the
+ * length is written last, so a record cut short by a crash reads as the end of the segment. A length of
+ * {@code -1} marks a segment that was closed because the next record did not fit.
+ * <p>
+ * Not thread-safe; {@link PublishOutbox} serializes access.
+ */
+class OutboxSpill {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxSpill.class);
+
+    static final int SEGMENT_MAGIC = 0x4F425831; // "OBX1"
+    static final int HEADER_SIZE = 8;
+    private static final int READ_OFFSET_POSITION = 4;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    /** Records read but whose place in the spill is not yet given up, in the order they were read. */
+    private final Deque<Read> unreleased = new ArrayDeque<>();
+    private long nextSegmentIndex;
+    private long pendingBytes;
+    private long pendingRecords;
+
+    OutboxSpill(Path directory, int segmentSize, long maxSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        recover();
+    }
+
+    /**
+     * @return {@code false} if the record does not fit within the configured maximum spill size
+     */
+    boolean append(OutboxRecord record) throws IOException {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = record.key().getBytes(StandardCharsets.UTF_8);
+        int length = 2 + topic.length + 2 + key.length + record.payload().length;
+        if (pendingBytes + 4 + length > maxSize || HEADER_SIZE + 4 + length > segmentSize) {
+            return false;
+        }
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.writePosition + 4 + length > segmentSize) {
+            if (segment != null && segment.writePosition + 4 <= segmentSize) {
+                segment.buffer.putInt(segment.writePosition, END_OF_SEGMENT);
+            }
+            segment = createSegment();
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition + 4;
+        buffer.putShort(position, (short) topic.length).put(position + 2, topic);
+        position += 2 + topic.length;
+        buffer.putShort(position, (short) key.length).put(position + 2, key);
+        position += 2 + key.length;
+        buffer.put(position, record.payload());
+        buffer.putInt(segment.writePosition, length);
+        segment.writePosition += 4 + length;
+        pendingBytes += 4 + length;
+        pendingRecords++;
+        return true;
+    }
+
+    /**
+     * Returns the oldest record not read yet, or {@code null} if there is none. The record stays in the spill
+     * until it is passed to {@link #release}.
+     */
+    Read poll() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.peekFirst();
+            int length = lengthAt(segment, segment.readPosition);
+            if (length > 0) {
+                Read read = new Read(segment, read(segment.buffer, segment.readPosition + 4, length), 4 + length);
+                segment.readPosition += 4 + length;
+                unreleased.addLast(read);
+                return read;
+            }
+            if (segments.size() == 1 && length == 0) {
+                return null;
+            }
+            // Read completely and no longer written to; deleted once its last record is released
+            segments.removeFirst();
+            segment.exhausted = true;
+            if (unreleased.isEmpty() || unreleased.peekLast().segment != segment) {
+                Files.deleteIfExists(segment.path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives up the place of a record returned by {@link #poll}, because it was published or will not be. The
+     * offset a restart resumes from only moves past records released in the order they were read.
+     */
+    void release(Read read) throws IOException {
+        read.released = true;
+        while (!unreleased.isEmpty() && unreleased.peekFirst().released) {
+            Read done = unreleased.removeFirst();
+            Segment segment = done.segment;
+            segment.committedPosition += done.size;
+            segment.buffer.putInt(READ_OFFSET_POSITION, segment.committedPosition);
+            pendingBytes -= done.size;
+            pendingRecords--;
+            if (segment.exhausted && (unreleased.isEmpty() || unreleased.peekFirst().segment != segment)) {
+                Files.deleteIfExists(segment.path);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of the records not read yet.
+     */
+    Set<String> unreadKeys() {
+        Set<String> keys = new HashSet<>();
+        for (Segment segment : segments) {
+            int position = segment.readPosition;
+            int length = lengthAt(segment, position);
+            while (length > 0) {
+                keys.add(read(segment.buffer, position + 4, length).key());
+                position += 4 + length;
+                length = lengthAt(segment, position);
+            }
+        }
+        return keys;
+    }
+
+    boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    private int lengthAt(Segment segment, int position) {
+        return position + 4 <= segmentSize ? segment.buffer.getInt(position) : END_OF_SEGMENT;
+    }
+
+    private static OutboxRecord read(MappedByteBuffer buffer, int position, int length) {
+        int end = position + length;
+        int topicLength = Short.toUnsignedInt(buffer.getShort(position));
+        String topic = string(buffer, position + 2, topicLength);
+        position += 2 + topicLength;
+        int keyLength = Short.toUnsignedInt(buffer.getShort(position));
+        String key = string(buffer, position + 2, keyLength);
+        position += 2 + keyLength;
+        byte[] payload = new byte[end - position];
+        buffer.get(position, payload);
+        return new OutboxRecord(topic, key, payload, System.nanoTime());
+    }
+
+    private static String string(MappedByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Segment createSegment() throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(String.format("outbox-%019d.seg", nextSegmentIndex++));
+        Segment segment = new Segment(path, map(path));
+        segment.buffer.putInt(0, SEGMENT_MAGIC).putInt(READ_OFFSET_POSITION, HEADER_SIZE);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Picks up segments left behind by a previous run, so their records are published before new ones.
+     */
+    private void recover() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().matches("outbox-\\d{19}\\.seg")).sorted().toList();
+        }
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            nextSegmentIndex = Long.parseLong(name.substring("outbox-".length(), name.length() - ".seg".length())) + 1;
+            if (Files.size(path) != segmentSize) {
+                logger.warn("Ignoring outbox segment '{}': its size does not match the configured segment size.", path);
+                continue;
+            }
+            Segment segment = new Segment(path, map(path));
+            if (segment.buffer.getInt(0) != SEGMENT_MAGIC) {
+                logger.warn("Ignoring '{}': not an outbox segment.", path);
+                continue;
+            }
+            segment.readPosition = segment.buffer.getInt(READ_OFFSET_POSITION);
+            segment.committedPosition = segment.readPosition;
+            int position = segment.readPosition;
+            while (position + 4 <= segmentSize) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0) {
+                    break;
+                }
+                position += 4 + length;
+                pendingBytes += 4 + length;
+                pendingRecords++;
+            }
+            segment.writePosition = position;
+            segments.addLast(segment);
+        }
+        // Later appends must not land in a recovered segment behind a torn record
+        if (!segments.isEmpty()) {
+            Segment last = segments.peekLast();
+            if (last.writePosition + 4 <= segmentSize) {
+                last.buffer.putInt(last.writePosition, END_OF_SEGMENT);
+            }
+            last.writePosition = segmentSize;
+        }
+        if (pendingRecords > 0) {
+            logger.info("Recovered {} unpublished updates ({} bytes) from '{}'.", pendingRecords, pendingBytes, directory);
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        /** Where the next record is read. */
+        private int readPosition = HEADER_SIZE;
+        /** Where reading resumes after a restart; trails {@code readPosition} by the records not released yet. */
+        private int committedPosition = HEADER_SIZE;
+        private int writePosition = HEADER_SIZE;
+        /** Read completely and no longer written to. */
+        private boolean exhausted;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * A record returned by {@link #poll}, to be {@linkplain #release released} once it no longer needs its place.
+     */
+    static final class Read {
+
+        private final Segment segment;
+        private final OutboxRecord record;
+        private final int size;
+        private boolean released;
+
+        private Read(Segment segment, OutboxRecord record, int size) {
+            this.segment = segment;
+            this.record = record;
+            this.size = size;
+        }
+
+        OutboxRecord record() {
+            return record;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.example.restcalls.outbox;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.logging.RateLimitedLogger;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.service.PublishFailureListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decouples accepting an update from publishing it, so that a slow or unavailable broker neither blocks the
+ * scheduler nor loses updates.
+ * <p>
+ * {@link #offer} never waits: the update goes to a bounded in-memory queue, or, when that is full or the broker
+ * is failing, is appended to an {@link OutboxSpill} on disk. Once something has been spilled, further updates
+ * are spilled behind it until the spill has been drained, so updates are always published in the order they
+ * were accepted, and in particular in order per event.
+ * <p>
+ * A single dispatcher thread hands updates to the producer, with at most {@code maxInFlight} awaiting an
+ * acknowledgement. When a send fails with a retriable error the dispatcher stops taking new updates, waits for
+ * the sends in flight to complete and then retries the failed ones in their original order until the broker
+ * accepts them, skipping any that a later update of the same event has already replaced. Meanwhile new updates
+ * are spilled.
+ * <p>
+ * Spilled updates survive a restart and are published first after it. A spilled update only leaves the spill
+ * once the broker acknowledged it, so one in flight when the process stops is published again after the
+ * restart. Updates still in memory are drained for a short grace period on shutdown, and the sends in flight
+ * are given as long again to complete; what is left unpublished then is spilled as well.
+ */
+@Component
+@ConditionalOnProperty(prefix = "events.publisher.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PublishOutbox implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishOutbox.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(PublishOutbox.class, Duration.ofSeconds(10));
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final PublisherProperties publisherProperties;
+    private final EventMetrics eventMetrics;
+    private final List<PublishFailureListener> failureListeners;
+    private final BlockingQueue<OutboxRecord> memory;
+    private final Semaphore inFlight;
+    private final Queue<PendingSend> failed = new ConcurrentLinkedQueue<>();
+    /** Highest sequence acknowledged per event, to recognize failed sends that a later one has replaced. */
+    private final Map<String, Long> lastAckedSequence = new ConcurrentHashMap<>();
+    // Guards spill and spilling
+    private final Object lock = new Object();
+    private OutboxSpill spill;
+    private boolean spilling;
+    private volatile boolean brokerFailing;
+    private volatile boolean running = true;
+    private long nextSequence;
+    private Thread dispatcher;
+    private Duration shutdownGrace = Duration.ofSeconds(10);
+
+    public PublishOutbox(KafkaTemplate<String, byte[]> kafkaTemplate, PublisherProperties publisherProperties,
+                         EventMetrics eventMetrics) {
+        this(kafkaTemplate, publisherProperties, eventMetrics, List.of());
+    }
+
+    @Autowired
+    public PublishOutbox(KafkaTemplate<String, byte[]> kafkaTemplate, PublisherProperties publisherProperties,
+                         EventMetrics eventMetrics, ObjectProvider<PublishFailureListener> failureListeners) {
+        this(kafkaTemplate, publisherProperties, eventMetrics, failureListeners.orderedStream().toList());
+    }
+
+    PublishOutbox(KafkaTemplate<String, byte[]> kafkaTemplate, PublisherProperties publisherProperties,
+                  EventMetrics eventMetrics, List<PublishFailureListener> failureListeners) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.failureListeners = failureListeners;
+        this.publisherProperties = publisherProperties;
+        this.eventMetrics = eventMetrics;
+        this.memory = new ArrayBlockingQueue<>(publisherProperties.getOutbox().getMemoryCapacity());
+        this.inFlight = new Semaphore(publisherProperties.getMaxInFlight());
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        PublisherProperties.Outbox settings = publisherProperties.getOutbox();
+        spill = new OutboxSpill(Path.of(settings.getDirectory()), Math.toIntExact(settings.getSegmentSize().toBytes()),
+                settings.getMaxSpillSize().toBytes());
+        spilling = !spill.isEmpty();
+        dispatcher = new Thread(this::runDispatcher, "publish-outbox");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Accepts the update for publishing without waiting for the broker.
+     *
+     * @return {@code false} only if the update could neither be queued nor spilled and was dropped
+     */
+    public boolean offer(String topic, String key, byte[] payload) {
+        OutboxRecord record = new OutboxRecord(topic, key, payload, System.nanoTime());
+        synchronized (lock) {
+            if (running && !spilling && !brokerFailing && memory.offer(record)) {
+                return true;
+            }
+            try {
+                if (spill.append(record)) {
+                    spilling = true;
+                    return true;
+                }
+            } catch (IOException e) {
+                rateLimitedLogger.error("Could not spill update for EventId '{}' to '{}': {}", key,
+                        publisherProperties.getOutbox().getDirectory(), e.getMessage());
+            }
+            // Without anything spilled, queueing in memory keeps the order
+            if (running && !spilling && memory.offer(record)) {
+                return true;
+            }
+        }
+        eventMetrics.recordPublishDropped();
+        rateLimitedLogger.error("Dropping update for EventId '{}': the outbox is full ({} in memory, {} spilled).",
+                key, memory.size(), getSpilledRecords());
+        return false;
+    }
+
+    public long getSpilledRecords() {
+        synchronized (lock) {
+            return spill.getPendingRecords();
+        }
+    }
+
+    public int getQueuedRecords() {
+        return memory.size();
+    }
+
+    public boolean isBrokerFailing() {
+        return brokerFailing;
+    }
+
+    void setShutdownGrace(Duration shutdownGrace) {
+        this.shutdownGrace = shutdownGrace;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("events.publisher.outbox.queued", this, PublishOutbox::getQueuedRecords)
+                .description("Updates waiting in memory to be published")
+                .register(registry);
+        Gauge.builder("events.publisher.outbox.spilled", this, PublishOutbox::getSpilledRecords)
+                .description("Updates spilled to disk waiting to be published")
+                .register(registry);
+    }
+
+    /**
+     * Stops the dispatcher once the updates in memory are handed to the producer, or after a grace period, and
+     * waits as long again for the sends in flight. Whatever is still unpublished then is spilled, and spilled
+     * updates stay on disk for the next start.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        dispatcher.join(shutdownGrace.toMillis());
+        if (dispatcher.isAlive()) {
+            dispatcher.interrupt();
+            dispatcher.join(shutdownGrace.toMillis());
+        }
+        // A send failing later would land in failed after it has been spilled
+        int maxInFlight = publisherProperties.getMaxInFlight();
+        if (inFlight.tryAcquire(maxInFlight, shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(maxInFlight);
+        } else {
+            logger.warn("Shutting down with {} sends unresolved after {}; those of updates not spilled are lost if they fail.",
+                    maxInFlight - inFlight.availablePermits(), shutdownGrace);
+        }
+        spillRemaining();
+        long spilled = getSpilledRecords();
+        if (spilled > 0) {
+            logger.info("{} spilled updates remain in '{}' and will be published after the next start.", spilled,
+                    publisherProperties.getOutbox().getDirectory());
+        }
+    }
+
+    /**
+     * Appends the updates left in memory and the failed ones to the spill. Failed updates read from the spill
+     * are still in it. The appended updates are published after everything already spilled, so those that an
+     * update still in the spill replaces are left out rather than published after it.
+     */
+    private void spillRemaining() {
+        List<PendingSend> retries = new ArrayList<>(failed);
+        failed.clear();
+        retries.sort(Comparator.comparingLong(PendingSend::sequence));
+        Map<String, Long> spilledRetries = new HashMap<>();
+        for (PendingSend pending : retries) {
+            if (pending.spilled() != null) {
+                spilledRetries.put(pending.record().key(), pending.sequence());
+            }
+        }
+        int superseded = 0;
+        int lost = 0;
+        synchronized (lock) {
+            Set<String> unread = spill.unreadKeys();
+            List<OutboxRecord> remaining = new ArrayList<>();
+            for (PendingSend pending : retries) {
+                if (pending.spilled() != null) {
+                    continue;
+                }
+                String key = pending.record().key();
+                Long replacedBy = spilledRetries.get(key);
+                Long acked = lastAckedSequence.get(key);
+                if (unread.contains(key) || (replacedBy != null && replacedBy > pending.sequence())
+                        || (acked != null && acked > pending.sequence())) {
+                    superseded++;
+                } else {
+                    remaining.add(pending.record());
+                }
+            }
+            // Accepted after every update handed to the producer
+            for (OutboxRecord record = memory.poll(); record != null; record = memory.poll()) {
+                if (unread.contains(record.key())) {
+                    superseded++;
+                } else {
+                    remaining.add(record);
+                }
+            }
+            for (OutboxRecord record : remaining) {
+                try {
+                    if (spill.append(record)) {
+                        spilling = true;
+                        continue;
+                    }
+                } catch (IOException e) {
+                    rateLimitedLogger.error("Could not spill update for EventId '{}' to '{}': {}", record.key(),
+                            publisherProperties.getOutbox().getDirectory(), e.getMessage());
+                }
+                lost++;
+            }
+        }
+        if (superseded > 0) {
+            logger.info("Shutting down: {} unpublished updates were replaced by spilled ones.", superseded);
+        }
+        if (lost > 0) {
+            logger.warn("Shutting down with {} unpublished updates that did not fit in the spill; they are lost.", lost);
+        }
+    }
+
+    private void runDispatcher() {
+        while (running || !memory.isEmpty() || !failed.isEmpty()) {
+            try {
+                if (brokerFailing) {
+                    retryFailed();
+                    continue;
+                }
+                PendingSend pending = next();
+                if (pending != null) {
+                    acquireInFlight(pending);
+                    send(pending);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                rateLimitedLogger.error("Publish outbox dispatcher failed: {}", e.getMessage());
+                sleep(publisherProperties.getRetryBackoff());
+            }
+        }
+    }
+
+    /**
+     * @return the oldest accepted update, or {@code null} if there was none within a short wait
+     */
+    private PendingSend next() throws IOException, InterruptedException {
+        OutboxRecord record = memory.poll();
+        if (record != null) {
+            return new PendingSend(nextSequence++, record, null);
+        }
+        if (!running) {
+            return null;
+        }
+        synchronized (lock) {
+            // Offers only queue in memory under the lock, so if memory is still empty here anything spilled was
+            // accepted next
+            record = memory.poll();
+            if (record != null) {
+                return new PendingSend(nextSequence++, record, null);
+            }
+            if (spilling) {
+                OutboxSpill.Read read = spill.poll();
+                if (read == null) {
+                    spilling = false;
+                    return null;
+                }
+                return new PendingSend(nextSequence++, read.record(), read);
+            }
+        }
+        if (inFlight.availablePermits() == publisherProperties.getMaxInFlight()) {
+            // Nothing in flight that a later failure could be compared with
+            lastAckedSequence.clear();
+        }
+        record = memory.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        return record != null ? new PendingSend(nextSequence++, record, null) : null;
+    }
+
+    private void acquireInFlight(PendingSend pending) throws InterruptedException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            // Shutting down; keep the update to be spilled
+            failed.add(pending);
+            throw e;
+        }
+    }
+
+    private void send(PendingSend pending) {
+        OutboxRecord record = pending.record();
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record.topic(), record.key(), record.payload());
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, ex) -> {
+            if (ex == null) {
+                acknowledged(pending);
+            } else if (isRetriable(ex)) {
+                failed.add(pending);
+                if (!brokerFailing) {
+                    brokerFailing = true;
+                    rateLimitedLogger.warn("Publishing EventId '{}' to topic '{}' failed, holding updates in the outbox until the broker recovers. Error: {}",
+                            record.key(), record.topic(), ex.getMessage());
+                }
+            } else {
+                givenUp(pending, ex);
+            }
+            inFlight.release();
+        });
+    }
+
+    private void acknowledged(PendingSend pending) {
+        lastAckedSequence.merge(pending.record().key(), pending.sequence(), Math::max);
+        eventMetrics.recordPublish(true, pending.record().acceptedNanos());
+        release(pending);
+    }
+
+    private void givenUp(PendingSend pending, Throwable ex) {
+        OutboxRecord record = pending.record();
+        eventMetrics.recordPublish(false, record.acceptedNanos());
+        rateLimitedLogger.error("Failed to publish EventId '{}' to topic '{}'. Error: {}", record.key(), record.topic(),
+                ex.getMessage());
+        failureListeners.forEach(listener -> listener.onPublishFailed(record.key()));
+        release(pending);
+    }
+
+    /**
+     * Lets a spilled update leave the spill once it has been published or will not be.
+     */
+    private void release(PendingSend pending) {
+        if (pending.spilled() == null) {
+            return;
+        }
+        synchronized (lock) {
+            try {
+                spill.release(pending.spilled());
+            } catch (IOException e) {
+                rateLimitedLogger.error("Could not release spilled update for EventId '{}' in '{}': {}", pending.record().key(),
+                        publisherProperties.getOutbox().getDirectory(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits for the sends in flight, then publishes the failed ones one at a time in their original order,
+     * retrying each until the broker takes it.
+     */
+    private void retryFailed() throws InterruptedException {
+        int maxInFlight = publisherProperties.getMaxInFlight();
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+
+        List<PendingSend> retries = new ArrayList<>(failed);
+        failed.clear();
+        retries.sort(Comparator.comparingLong(PendingSend::sequence));
+        int superseded = 0;
+        for (int i = 0; i < retries.size(); i++) {
+            PendingSend pending = retries.get(i);
+            OutboxRecord record = pending.record();
+            Long acked = lastAckedSequence.get(record.key());
+            if (acked != null && acked > pending.sequence()) {
+                superseded++;
+                release(pending);
+                continue;
+            }
+            while (true) {
+                try {
+                    kafkaTemplate.send(record.topic(), record.key(), record.payload()).get();
+                    acknowledged(pending);
+                    break;
+                } catch (InterruptedException e) {
+                    failed.addAll(retries.subList(i, retries.size()));
+                    throw e;
+                } catch (ExecutionException | RuntimeException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    if (!isRetriable(cause)) {
+                        givenUp(pending, cause);
+                        break;
+                    }
+                    rateLimitedLogger.warn("Broker still failing, {} updates held in memory and {} spilled. Error: {}",
+                            retries.size() - i + memory.size(), getSpilledRecords(), cause.getMessage());
+                    if (!sleep(publisherProperties.getRetryBackoff())) {
+                        // Shutting down; keep what is left to be spilled
+                        failed.addAll(retries.subList(i, retries.size()));
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        }
+        brokerFailing = false;
+        logger.info("Broker accepts updates again after {} retried ({} superseded by later updates); {} spilled updates to catch up on.",
+                retries.size() - superseded, superseded, getSpilledRecords());
+    }
+
+    /**
+     * @return {@code false} if interrupted
+     */
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(Math.max(1, duration.toMillis()));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isRetriable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param spilled where the update is in the spill, or {@code null} if it came from memory
+     */
+    private record PendingSend(long sequence, OutboxRecord record, OutboxSpill.Read spilled) {
+    }
+}
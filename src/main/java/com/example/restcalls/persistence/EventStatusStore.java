@@ -0,0 +1,342 @@
+package com.example.restcalls.persistence;
+
+import com.example.restcalls.config.PersistenceProperties;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.EventStatusListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists event statuses so that a restarted instance resumes polling right away instead of waiting for the
+ * feed to re-send every status.
+ * <p>
+ * Every status update is appended to {@code status.log}. Periodically the live events are written to a
+ * compacted {@code status.snapshot} and the log is started afresh, so the log only ever holds the updates since
+ * the last snapshot. The snapshot is taken from the statuses the writer has logged, not from {@link EventService}:
+ * listeners are notified before the service's map changes, so the map may not yet hold an update that is already
+ * in the log. On startup the snapshot and then the log are read through memory-mapped buffers and
+ * applied to {@link EventService} without notifying its listeners.
+ * <p>
+ * Writing happens on a dedicated thread: {@link #onStatusUpdated} only enqueues the update, and the writer
+ * appends whatever has queued up in one write. Callers never wait for the disk: when {@code queueCapacity}
+ * updates are already pending, the update is left out of the log and counted in {@code events.persistence.dropped}.
+ * The writer then writes out what was queued before it and logs the event's current status in its place.
+ * <p>
+ * Log records are {@code [live:1][length:2][eventId:UTF-8]}; a record cut short by a crash is discarded.
+ * The snapshot is {@code [magic:4][count:4]} followed by {@code [length:2][eventId:UTF-8]} per live event and
+ * is replaced atomically, so it is either the previous or the new one.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "events.persistence", name = "enabled", havingValue = "true")
+public class EventStatusStore implements EventStatusListener, InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStatusStore.class);
+
+    static final String SNAPSHOT_FILE = "status.snapshot";
+    static final String LOG_FILE = "status.log";
+    static final int SNAPSHOT_MAGIC = 0x45565331; // "EVS1"
+    static final int MAX_EVENT_ID_BYTES = 0xFFFF;
+    private static final int WRITE_BUFFER_SIZE = 128 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final StatusRecord STOP = new StatusRecord(null, false);
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final EventService eventService;
+    private final PersistenceProperties properties;
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final BlockingQueue<StatusRecord> queue;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Set<String> droppedEventIds = ConcurrentHashMap.newKeySet();
+    // Live events as of the records written so far; only touched by the writer once it has started
+    private final Set<String> loggedLive = new HashSet<>();
+    private FileChannel log;
+    private Thread writer;
+
+    public EventStatusStore(EventService eventService, PersistenceProperties properties) {
+        this.eventService = eventService;
+        this.properties = properties;
+        Path directory = Path.of(properties.getDirectory());
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.logPath = directory.resolve(LOG_FILE);
+        this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Files.createDirectories(snapshotPath.getParent());
+        long start = System.nanoTime();
+        int snapshotEvents = readSnapshot();
+        long validLogLength = replayLog();
+        logger.info("Recovered {} live events ({} from snapshot) from '{}' in {} ms.", eventService.getLiveEventCount(),
+                snapshotEvents, snapshotPath.getParent(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        loggedLive.addAll(eventService.getLiveEvents().keySet());
+
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Drop a record torn by a crash, otherwise new records would be appended behind it and be unreadable
+        log.truncate(validLogLength);
+        log.position(validLogLength);
+
+        writer = new Thread(this::runWriter, "event-status-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onStatusUpdated(String eventId, boolean live) {
+        if (!queue.offer(new StatusRecord(eventId, live))) {
+            dropped.incrementAndGet();
+            droppedEventIds.add(eventId);
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("events.persistence.dropped", this, EventStatusStore::getDroppedCount)
+                .description("Status updates left out of the status log because its queue was full; the event's status is logged later instead")
+                .register(registry);
+    }
+
+    /**
+     * Stops the writer after everything queued so far has been written, and leaves a fresh snapshot behind
+     * so the next start does not have to replay the log. A writer that cannot even take the stop signal is
+     * interrupted instead.
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (!queue.offer(STOP, STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("Status writer did not keep up within {} s, stopping it without a final snapshot.", STOP_TIMEOUT_SECONDS);
+            writer.interrupt();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+        log.close();
+    }
+
+    private void runWriter() {
+        List<StatusRecord> batch = new ArrayList<>(MAX_BATCH);
+        long snapshotIntervalNanos = properties.getSnapshotInterval().toNanos();
+        long nextSnapshot = System.nanoTime() + snapshotIntervalNanos;
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                StatusRecord first = queue.poll(Math.max(0, nextSnapshot - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    stopped = appendBatch(batch);
+                }
+                if (!droppedEventIds.isEmpty()) {
+                    stopped |= appendDropped(batch);
+                }
+                if (stopped || System.nanoTime() - nextSnapshot >= 0) {
+                    compact();
+                    nextSnapshot = System.nanoTime() + snapshotIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                batch.clear();
+                writeBuffer.clear();
+                logger.error("Failed to persist event statuses to '{}': {}", snapshotPath.getParent(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Appends and clears the batch.
+     *
+     * @return whether the batch held the stop signal
+     */
+    private boolean appendBatch(List<StatusRecord> batch) throws IOException {
+        boolean stopped = batch.remove(STOP);
+        append(batch);
+        batch.clear();
+        return stopped;
+    }
+
+    /**
+     * Logs the current status of the events whose updates were dropped, after the updates queued before them:
+     * replayed later, those would otherwise undo the status logged here. The status is read under the event's
+     * lock, so it includes an update whose listeners are still running.
+     *
+     * @return whether the stop signal was among the queued updates
+     */
+    private boolean appendDropped(List<StatusRecord> batch) throws IOException {
+        List<String> eventIds = new ArrayList<>();
+        for (Iterator<String> it = droppedEventIds.iterator(); it.hasNext(); ) {
+            eventIds.add(it.next());
+            it.remove();
+        }
+        boolean stopped = false;
+        for (int pending = queue.size(); pending > 0 && !stopped; ) {
+            int drained = queue.drainTo(batch, Math.min(pending, MAX_BATCH));
+            if (drained == 0) {
+                break;
+            }
+            pending -= drained;
+            stopped = appendBatch(batch);
+        }
+        for (String eventId : eventIds) {
+            batch.add(new StatusRecord(eventId, eventService.isEventLiveLocked(eventId)));
+        }
+        appendBatch(batch);
+        return stopped;
+    }
+
+    private void append(List<StatusRecord> batch) throws IOException {
+        for (StatusRecord record : batch) {
+            byte[] eventId = record.eventId().getBytes(StandardCharsets.UTF_8);
+            if (eventId.length > MAX_EVENT_ID_BYTES) {
+                logger.warn("Event id of {} bytes is too long to persist, skipping it.", eventId.length);
+                continue;
+            }
+            if (writeBuffer.remaining() < 3 + eventId.length) {
+                flushWriteBuffer(log);
+            }
+            writeBuffer.put((byte) (record.live() ? 1 : 0)).putShort((short) eventId.length).put(eventId);
+            if (record.live()) {
+                loggedLive.add(record.eventId());
+            } else {
+                loggedLive.remove(record.eventId());
+            }
+        }
+        flushWriteBuffer(log);
+        if (properties.isFsync()) {
+            log.force(false);
+        }
+    }
+
+    /**
+     * Writes the live events as of the log to a new snapshot and empties the log. The snapshot holds exactly
+     * what replaying the log would, so nothing is lost by dropping it.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        Path tmp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        int count = writeSnapshot(tmp, loggedLive);
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.truncate(0);
+        log.position(0);
+        logger.debug("Wrote snapshot of {} live events in {} ms.", count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private int writeSnapshot(Path path, Collection<String> eventIds) throws IOException {
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeBuffer.putInt(SNAPSHOT_MAGIC).putInt(0);
+            for (String id : eventIds) {
+                byte[] eventId = id.getBytes(StandardCharsets.UTF_8);
+                if (eventId.length > MAX_EVENT_ID_BYTES) {
+                    continue;
+                }
+                if (writeBuffer.remaining() < 2 + eventId.length) {
+                    flushWriteBuffer(channel);
+                }
+                writeBuffer.putShort((short) eventId.length).put(eventId);
+                count++;
+            }
+            flushWriteBuffer(channel);
+            // Ids too long to persist are skipped, so the count is only known at the end
+            channel.write(ByteBuffer.allocate(4).putInt(0, count), 4);
+            channel.force(true);
+        }
+        return count;
+    }
+
+    private void flushWriteBuffer(FileChannel channel) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private int readSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != SNAPSHOT_MAGIC) {
+                logger.warn("Ignoring '{}': not an event status snapshot.", snapshotPath);
+                return 0;
+            }
+            int count = buffer.getInt();
+            byte[] scratch = new byte[MAX_EVENT_ID_BYTES];
+            for (int i = 0; i < count; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                buffer.get(scratch, 0, length);
+                eventService.restoreEventStatus(new String(scratch, 0, length, StandardCharsets.UTF_8), true);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Applies the logged updates in order.
+     *
+     * @return the length of the readable part of the log
+     */
+    private long replayLog() throws IOException {
+        if (!Files.exists(logPath)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] scratch = new byte[MAX_EVENT_ID_BYTES];
+            while (buffer.remaining() >= 3) {
+                int start = buffer.position();
+                boolean live = buffer.get() != 0;
+                int length = Short.toUnsignedInt(buffer.getShort());
+                if (buffer.remaining() < length) {
+                    logger.warn("Discarding incomplete record at offset {} of '{}'.", start, logPath);
+                    buffer.position(start);
+                    break;
+                }
+                buffer.get(scratch, 0, length);
+                eventService.restoreEventStatus(new String(scratch, 0, length, StandardCharsets.UTF_8), live);
+            }
+            return buffer.position();
+        }
+    }
+
+    private record StatusRecord(String eventId, boolean live) {
+    }
+}
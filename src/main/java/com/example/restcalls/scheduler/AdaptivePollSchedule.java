@@ -0,0 +1,116 @@
+package com.example.restcalls.scheduler;
+
+import com.example.restcalls.config.SchedulerProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Keeps a next-due time per live event so that {@link EventScheduler} only polls the events
+ * that are due on a tick. Events whose score keeps changing are polled every
+ * {@code minInterval}; quiet ones back off geometrically up to {@code maxInterval}.
+ * <p>
+ * The due queue is ordered by due time, so a tick costs O(due · log n) for the queue plus
+ * one map lookup per live event to enrol new ones and notice events that went off.
+ */
+@Component
+public class AdaptivePollSchedule {
+
+    private static final Comparator<PollState> BY_DUE_TIME =
+            Comparator.comparingLong((PollState state) -> state.dueAt).thenComparing(state -> state.eventId);
+
+    private final SchedulerProperties.Adaptive settings;
+    private final Map<String, PollState> states = new HashMap<>();
+    private final TreeSet<PollState> dueQueue = new TreeSet<>(BY_DUE_TIME);
+    private long generation;
+
+    public AdaptivePollSchedule(SchedulerProperties properties) {
+        this.settings = properties.getAdaptive();
+    }
+
+    /**
+     * Returns the live events that are due at {@code nowMillis}. Events seen for the first time are due
+     * immediately; events no longer in {@code liveEventIds} are forgotten. Every returned event is
+     * provisionally rescheduled one interval ahead, so an event whose poll never reports back is
+     * still picked up again.
+     */
+    public synchronized List<String> takeDue(Collection<String> liveEventIds, long nowMillis) {
+        long tick = ++generation;
+        for (String eventId : liveEventIds) {
+            PollState state = states.get(eventId);
+            if (state == null) {
+                state = new PollState(eventId, settings.getMinInterval().toMillis(), nowMillis);
+                states.put(eventId, state);
+                dueQueue.add(state);
+            }
+            state.seenGeneration = tick;
+        }
+
+        List<String> due = new ArrayList<>();
+        while (!dueQueue.isEmpty() && dueQueue.first().dueAt <= nowMillis) {
+            PollState state = dueQueue.pollFirst();
+            if (state.seenGeneration != tick) {
+                states.remove(state.eventId);
+                continue;
+            }
+            due.add(state.eventId);
+            state.dueAt = nowMillis + state.intervalMillis;
+            dueQueue.add(state);
+        }
+        return due;
+    }
+
+    /**
+     * Adjusts the poll interval of an event from the outcome of its latest poll and reschedules it.
+     *
+     * @param score the score returned by the upstream API, or {@code null} when the poll failed
+     */
+    public synchronized void recordResult(String eventId, String score, long nowMillis) {
+        PollState state = states.get(eventId);
+        if (state == null) {
+            return;
+        }
+        if (score != null && state.lastScore != null && !Objects.equals(score, state.lastScore)) {
+            state.intervalMillis = settings.getMinInterval().toMillis();
+        } else if (state.lastScore != null || score == null) {
+            long backedOff = (long) (state.intervalMillis * settings.getBackoffMultiplier());
+            state.intervalMillis = Math.min(backedOff, settings.getMaxInterval().toMillis());
+        }
+        if (score != null) {
+            state.lastScore = score;
+        }
+
+        dueQueue.remove(state);
+        state.dueAt = nowMillis + state.intervalMillis;
+        dueQueue.add(state);
+    }
+
+    /**
+     * Returns the current poll interval of an event in milliseconds, or -1 when it is not scheduled.
+     */
+    public synchronized long currentIntervalMillis(String eventId) {
+        PollState state = states.get(eventId);
+        return state == null ? -1 : state.intervalMillis;
+    }
+
+    private static final class PollState {
+        private final String eventId;
+        private long intervalMillis;
+        private long dueAt;
+        private long seenGeneration;
+        private String lastScore;
+
+        private PollState(String eventId, long intervalMillis, long dueAt) {
+            this.eventId = eventId;
+            this.intervalMillis = intervalMillis;
+            this.dueAt = dueAt;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.restcalls.scheduler;
+
+import com.example.restcalls.config.SchedulerProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Bounded worker pool used by {@link EventScheduler} to fan a tick out over several threads.
+ * Threads are only started once the first task is submitted, so the pool costs nothing
+ * while the scheduler runs in SEQUENTIAL mode.
+ */
+@Component
+public class EventFetchPool implements DisposableBean {
+
+    private final ExecutorService executor;
+
+    public EventFetchPool(SchedulerProperties properties) {
+        this.executor = Executors.newFixedThreadPool(properties.getMaxConcurrency(),
+                new CustomizableThreadFactory("event-fetch-"));
+    }
+
+    /**
+     * Runs {@code task} once per item and waits until all of them finished or {@code deadline} passed.
+     * Tasks are expected to handle their own failures; anything they throw is ignored here.
+     *
+     * @return the items whose task had not completed when the deadline passed; tasks that had not
+     *         started yet are dropped, ones already running are interrupted so that they free their thread
+     *         before the next run
+     */
+    public <T> List<T> runAll(Collection<T> items, Consumer<T> task, Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Map<T, Future<?>> futures = new LinkedHashMap<>();
+        for (T item : items) {
+            futures.put(item, executor.submit(() -> task.accept(item)));
+        }
+        for (Future<?> future : futures.values()) {
+            try {
+                future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Collect whatever is still running below
+                break;
+            } catch (ExecutionException | CancellationException e) {
+                // A task failed; the others are still awaited
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<T> missed = new ArrayList<>();
+        futures.forEach((item, future) -> {
+            if (!future.isDone()) {
+                // Unlike a CompletableFuture's, cancelling a Future from submit() interrupts a running task
+                future.cancel(true);
+                missed.add(item);
+            }
+        });
+        return missed;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
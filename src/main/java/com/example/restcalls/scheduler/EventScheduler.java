@@ -1,57 +1,275 @@
 package com.example.restcalls.scheduler;
 
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.SchedulerProperties;
 import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.logging.RateLimitedLogger;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.metrics.EventMetrics.FetchOutcome;
 import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.LastPublishedScoreCache;
 import com.example.restcalls.service.MessageProducerService;
+import com.example.restcalls.stream.ScoreUpdateBroadcaster;
+import com.example.restcalls.upstream.EntityTagCache;
+import com.example.restcalls.upstream.SingleFlightScoreCache;
+import com.example.restcalls.upstream.TaggedResponse;
+import com.example.restcalls.upstream.UpstreamClient;
+import com.example.restcalls.upstream.UpstreamCancelledException;
+import com.example.restcalls.upstream.UpstreamRejectedException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+// Eager even with spring.main.lazy-initialization: a bean that is never created is never scheduled
 @Component
+@Lazy(false)
 @RequiredArgsConstructor
 public class EventScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(EventScheduler.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(EventScheduler.class, Duration.ofSeconds(10));
+    // Ids named in the deadline warning; the count covers the rest
+    private static final int MISSED_EVENTS_LOGGED = 10;
 
     private final EventService eventService;
-    private final RestTemplate restTemplate;
+    private final UpstreamClient upstreamClient;
     private final MessageProducerService messageProducerService;
+    private final SchedulerProperties schedulerProperties;
+    private final EventFetchPool eventFetchPool;
+    private final AdaptivePollSchedule adaptivePollSchedule;
+    private final LastPublishedScoreCache lastPublishedScoreCache;
+    private final ShardOwnership shardOwnership;
+    private final EventMetrics eventMetrics;
+    private final ScoreUpdateBroadcaster scoreUpdateBroadcaster;
+    private final SingleFlightScoreCache scoreCache;
+    private final LiveEventExpiry liveEventExpiry;
+    private final EntityTagCache entityTagCache;
+    // Runs never overlap, so a single summary per scheduler is enough
+    private final TickSummary summary = new TickSummary();
+    private boolean started;
 
-    @Scheduled(fixedRate = 10000)
+    @Scheduled(fixedRateString = "${events.scheduler.fixed-rate-ms:10000}")
     public void fetchLiveEventData() {
-        logger.info("Starting scheduled event processing run...");
+        if (!started) {
+            started = true;
+            logger.info("First scheduler run started {} ms after JVM start.", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        long start = eventMetrics.recordTickStart(schedulerProperties.getFixedRateMs());
+        try {
+            runTick();
+        } finally {
+            eventMetrics.recordTickEnd(start);
+        }
+    }
+
+    private void runTick() {
+        logger.debug("Starting scheduled event processing run...");
+        if (!upstreamClient.isAvailable()) {
+            logger.warn("Upstream circuit breaker is open. Skipping this run.");
+            return;
+        }
+        long start = System.nanoTime();
+        summary.reset();
         Map<String, Boolean> liveEvents = eventService.getLiveEvents();
-        logger.info("Found {} live events to process in this run.", liveEvents.size());
+        logger.debug("Found {} live events to process in this run.", liveEvents.size());
 
+        List<String> eventIds = new ArrayList<>(liveEvents.size());
         for (Map.Entry<String, Boolean> entry : liveEvents.entrySet()) {
-            String eventId = entry.getKey();
             // The getLiveEvents() method already filters for live events,
             // but an explicit check here is a good safeguard.
             if (Boolean.TRUE.equals(entry.getValue())) {
-                logger.info("Processing live event: {}", eventId);
-                String url = "http://localhost:8080/events/mockapi/event/" + eventId;
-                try {
-                    MockApiResponse response = restTemplate.getForObject(url, MockApiResponse.class);
-                    if (response != null) {
-                        logger.info("Successfully fetched data for event {}: Score {}", response.getEventId(), response.getCurrentScore());
-                        messageProducerService.sendMessage("live_event_updates", response);
-                    } else {
-                        logger.warn("Received null response from mock API for event: {}. URL: {}", eventId, url);
-                    }
-                } catch (RestClientException e) {
-                    logger.error("Error calling mock API for event {}. URL: {}. Error: {}", eventId, url, e.getMessage());
+                if (shardOwnership.owns(entry.getKey())) {
+                    eventIds.add(entry.getKey());
                 }
             } else {
                 // This case should ideally not be reached if getLiveEvents() is accurate.
-                logger.warn("Event {} was in the processing list but is not marked as live. Skipping.", eventId);
+                logger.warn("Event {} was in the processing list but is not marked as live. Skipping.", entry.getKey());
+            }
+        }
+
+        int owned = eventIds.size();
+        if (isAdaptive()) {
+            eventIds = adaptivePollSchedule.takeDue(eventIds, System.currentTimeMillis());
+        }
+
+        List<String> missed = new ArrayList<>();
+        if (schedulerProperties.getBatchSize() > 1) {
+            List<List<String>> batches = partition(eventIds, schedulerProperties.getBatchSize());
+            fetch(batches, this::processBatch).forEach(missed::addAll);
+        } else {
+            missed.addAll(fetch(eventIds, this::processEvent));
+        }
+        if (summary.refused.get() > 0) {
+            logger.warn("{} upstream requests in this run were refused by the circuit breaker or concurrency limiter.",
+                    summary.refused.get());
+        }
+        if (!missed.isEmpty()) {
+            logger.warn("Tick deadline of {} ms exceeded; {} live events were not fetched in this run, e.g. {}",
+                    schedulerProperties.getTickDeadline().toMillis(), missed.size(),
+                    missed.subList(0, Math.min(missed.size(), MISSED_EVENTS_LOGGED)));
+        }
+        logger.info("Run finished in {} ms: {} live, {} owned, {} due, {} polled ({} not modified), {} published, "
+                        + "{} unchanged, {} without data, {} failed, {} requests refused, {} missed the deadline.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), liveEvents.size(), owned, eventIds.size(),
+                summary.polled.get(), summary.notModified.get(), summary.published.get(), summary.unchanged.get(),
+                summary.withoutData.get(), summary.failed.get(), summary.refused.get(), missed.size());
+    }
+
+    /**
+     * Runs {@code work} for every unit within the tick deadline and returns the units that missed it.
+     */
+    private <T> List<T> fetch(List<T> units, Consumer<T> work) {
+        if (schedulerProperties.getExecutionMode() == SchedulerProperties.ExecutionMode.CONCURRENT) {
+            return eventFetchPool.runAll(units, work, schedulerProperties.getTickDeadline());
+        }
+        long deadline = System.nanoTime() + schedulerProperties.getTickDeadline().toNanos();
+        for (int i = 0; i < units.size(); i++) {
+            if (System.nanoTime() - deadline >= 0) {
+                return units.subList(i, units.size());
+            }
+            work.accept(units.get(i));
+        }
+        return List.of();
+    }
+
+    private void processEvent(String eventId) {
+        logger.debug("Processing live event: {}", eventId);
+        long start = System.nanoTime();
+        try {
+            MockApiResponse response = scoreCache.fetchEvent(eventId, this::fetchIfModified);
+            eventMetrics.recordFetch(false, response != null ? FetchOutcome.SUCCESS : FetchOutcome.EMPTY, start);
+            if (response != null) {
+                handleResponse(response);
+            } else {
+                summary.withoutData.incrementAndGet();
+                rateLimitedLogger.warn("Received null response from mock API for event: {}. URL: {}", eventId, upstreamClient.eventUrl(eventId));
+                recordPoll(eventId, null);
             }
+        } catch (UpstreamRejectedException e) {
+            eventMetrics.recordFetch(false, FetchOutcome.REJECTED, start);
+            logger.debug("Upstream call for event {} refused: {}", eventId, e.getMessage());
+            summary.refused.incrementAndGet();
+        } catch (UpstreamCancelledException e) {
+            // Interrupted at the tick deadline, so already reported as missed rather than failed
+            logger.debug("Upstream call for event {} cancelled: {}", eventId, e.getMessage());
+        } catch (RestClientException e) {
+            eventMetrics.recordFetch(false, FetchOutcome.ERROR, start);
+            summary.failed.incrementAndGet();
+            rateLimitedLogger.error("Error calling mock API for event {}. URL: {}. Error: {}", eventId, upstreamClient.eventUrl(eventId), e.getMessage());
+            recordPoll(eventId, null);
+        }
+    }
+
+    /**
+     * Fetches an event conditionally on the entity tag of the last response seen for it. If the upstream answers
+     * 304 Not Modified, that response is handled again without a body having been read or parsed; with
+     * change-only publishing it is then skipped as unchanged.
+     */
+    private MockApiResponse fetchIfModified(String eventId) {
+        TaggedResponse previous = entityTagCache.get(eventId);
+        TaggedResponse current = upstreamClient.fetchEventIfModified(eventId, previous);
+        if (previous != null && current == previous) {
+            summary.notModified.incrementAndGet();
+            return previous.response();
         }
-        logger.info("Finished scheduled event processing run.");
+        entityTagCache.put(eventId, current);
+        return current != null ? current.response() : null;
+    }
+
+    private void processBatch(List<String> eventIds) {
+        logger.debug("Processing batch of {} live events.", eventIds.size());
+        long start = System.nanoTime();
+        try {
+            List<MockApiResponse> responses = scoreCache.fetchEvents(eventIds, upstreamClient::fetchEvents);
+            eventMetrics.recordFetch(true, responses.isEmpty() ? FetchOutcome.EMPTY : FetchOutcome.SUCCESS, start);
+            Set<String> pending = new HashSet<>(eventIds);
+            for (MockApiResponse response : responses) {
+                if (response != null && pending.remove(response.getEventId())) {
+                    handleResponse(response);
+                }
+            }
+            if (!pending.isEmpty()) {
+                summary.withoutData.addAndGet(pending.size());
+                rateLimitedLogger.warn("Mock batch API returned no data for {} of {} requested events: {}", pending.size(), eventIds.size(), pending);
+                pending.forEach(eventId -> recordPoll(eventId, null));
+            }
+        } catch (UpstreamRejectedException e) {
+            eventMetrics.recordFetch(true, FetchOutcome.REJECTED, start);
+            logger.debug("Upstream call for batch of {} events refused: {}", eventIds.size(), e.getMessage());
+            summary.refused.incrementAndGet();
+        } catch (UpstreamCancelledException e) {
+            logger.debug("Upstream call for batch of {} events cancelled: {}", eventIds.size(), e.getMessage());
+        } catch (RestClientException e) {
+            eventMetrics.recordFetch(true, FetchOutcome.ERROR, start);
+            summary.failed.addAndGet(eventIds.size());
+            rateLimitedLogger.error("Error calling mock batch API for {} events. URL: {}. Error: {}", eventIds.size(),
+                    upstreamClient.eventsUrl(eventIds), e.getMessage());
+            eventIds.forEach(eventId -> recordPoll(eventId, null));
+        }
+    }
+
+    private void handleResponse(MockApiResponse response) {
+        summary.polled.incrementAndGet();
+        if (isSampled()) {
+            logger.info("Successfully fetched data for event {}: Score {}", response.getEventId(), response.getCurrentScore());
+        } else {
+            logger.debug("Successfully fetched data for event {}: Score {}", response.getEventId(), response.getCurrentScore());
+        }
+        liveEventExpiry.recordScore(response.getEventId(), response.getCurrentScore());
+        publishIfChanged(response);
+        recordPoll(response.getEventId(), response.getCurrentScore());
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> batches = new ArrayList<>((items.size() + size - 1) / size);
+        for (int from = 0; from < items.size(); from += size) {
+            batches.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return batches;
+    }
+
+    private void publishIfChanged(MockApiResponse response) {
+        long now = System.currentTimeMillis();
+        if (lastPublishedScoreCache.isUnchanged(response, now)) {
+            logger.debug("Score of event {} unchanged since last publish. Skipping.", response.getEventId());
+            summary.unchanged.incrementAndGet();
+            return;
+        }
+        scoreUpdateBroadcaster.publish(response);
+        if (messageProducerService.sendMessage("live_event_updates", response)) {
+            lastPublishedScoreCache.recordPublished(response, now);
+            summary.published.incrementAndGet();
+        }
+    }
+
+    private void recordPoll(String eventId, String score) {
+        if (isAdaptive()) {
+            adaptivePollSchedule.recordResult(eventId, score, System.currentTimeMillis());
+        }
+    }
+
+    private boolean isSampled() {
+        double rate = schedulerProperties.getEventLogSampleRate();
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private boolean isAdaptive() {
+        return schedulerProperties.getPollingMode() == SchedulerProperties.PollingMode.ADAPTIVE;
     }
 }
@@ -0,0 +1,30 @@
+package com.example.restcalls.scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts what happened to the events of one scheduler run, so that a run is logged as one summary line
+ * instead of several lines per event. Updated concurrently by the fetch pool in CONCURRENT mode.
+ */
+class TickSummary {
+
+    final AtomicInteger polled = new AtomicInteger();
+    /** Polled events the upstream answered with 304 Not Modified. */
+    final AtomicInteger notModified = new AtomicInteger();
+    final AtomicInteger published = new AtomicInteger();
+    final AtomicInteger unchanged = new AtomicInteger();
+    final AtomicInteger withoutData = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    /** Upstream requests, not events, refused by the circuit breaker or the concurrency limiter. */
+    final AtomicInteger refused = new AtomicInteger();
+
+    void reset() {
+        polled.set(0);
+        notModified.set(0);
+        published.set(0);
+        unchanged.set(0);
+        withoutData.set(0);
+        failed.set(0);
+        refused.set(0);
+    }
+}
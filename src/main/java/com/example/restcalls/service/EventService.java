@@ -2,35 +2,158 @@ package com.example.restcalls.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class EventService {
 
     private static final Logger logger = LoggerFactory.getLogger(EventService.class);
-    private final Map<String, Boolean> eventStatuses = new ConcurrentHashMap<>();
+    // Only live events are kept. A not-live event answers exactly like an unknown one, so removing it
+    // keeps memory at O(live) instead of growing with every event ever seen, and lets getLiveEvents()
+    // hand out a view of the map rather than filtering and copying it on every tick.
+    private final Map<String, Boolean> liveEvents = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> liveEventsView = Collections.unmodifiableMap(liveEvents);
+    private final ObjectProvider<EventStatusListener> listenerProvider;
+    private volatile List<EventStatusListener> listeners;
+
+    public EventService() {
+        this.listenerProvider = null;
+        this.listeners = List.of();
+    }
+
+    @Autowired
+    public EventService(ObjectProvider<EventStatusListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
 
     public void updateEventStatus(String eventId, boolean isLive) {
-        logger.info("Event {} status updated to {}", eventId, isLive ? "LIVE" : "NOT LIVE");
-        eventStatuses.put(eventId, isLive);
+        logger.debug("Event {} status updated to {}", eventId, isLive ? "LIVE" : "NOT LIVE");
+        List<EventStatusListener> listeners = listeners();
+        // Listeners are notified while the event's entry is locked, so concurrent updates of one event reach them
+        // (and the status log in particular) in the order they were applied to the map
+        liveEvents.compute(eventId, (id, current) -> {
+            for (EventStatusListener listener : listeners) {
+                listener.onStatusUpdated(id, isLive);
+            }
+            return isLive ? Boolean.TRUE : null;
+        });
+    }
+
+    /**
+     * Applies several status updates at once, skipping those that would not change an event's status. Listeners
+     * are only notified of actual changes, so applying the same updates twice notifies them once.
+     *
+     * @param statuses new status per event id, applied in iteration order
+     * @return the number of events whose status changed
+     */
+    public int updateEventStatuses(Map<String, Boolean> statuses) {
+        List<EventStatusListener> listeners = listeners();
+        int changed = 0;
+        for (Map.Entry<String, Boolean> status : statuses.entrySet()) {
+            String eventId = status.getKey();
+            boolean isLive = status.getValue();
+            boolean[] updated = new boolean[1];
+            liveEvents.compute(eventId, (id, current) -> {
+                if ((current != null) != isLive) {
+                    updated[0] = true;
+                    for (EventStatusListener listener : listeners) {
+                        listener.onStatusUpdated(id, isLive);
+                    }
+                }
+                return isLive ? Boolean.TRUE : null;
+            });
+            if (updated[0]) {
+                logger.debug("Event {} status updated to {}", eventId, isLive ? "LIVE" : "NOT LIVE");
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Marks a live event as not live if {@code condition} still holds. The condition is checked while the event's
+     * entry is locked, so no status update of the event can come in between it and the change.
+     *
+     * @return whether the event was live and has been marked not live
+     */
+    public boolean markNotLiveIf(String eventId, BooleanSupplier condition) {
+        List<EventStatusListener> listeners = listeners();
+        boolean[] updated = new boolean[1];
+        liveEvents.computeIfPresent(eventId, (id, current) -> {
+            if (!condition.getAsBoolean()) {
+                return current;
+            }
+            updated[0] = true;
+            for (EventStatusListener listener : listeners) {
+                listener.onStatusUpdated(id, false);
+            }
+            return null;
+        });
+        if (updated[0]) {
+            logger.debug("Event {} status updated to NOT LIVE", eventId);
+        }
+        return updated[0];
     }
 
+    /**
+     * Sets the status of an event as recovered from persistent storage: listeners are not notified and
+     * nothing is logged, since the update is not new.
+     */
+    public void restoreEventStatus(String eventId, boolean isLive) {
+        if (isLive) {
+            liveEvents.put(eventId, Boolean.TRUE);
+        } else {
+            liveEvents.remove(eventId);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the live events (every value is {@code true}). The view is not a copy:
+     * it reflects later status updates and, like any {@link ConcurrentHashMap} view, iterates weakly consistently.
+     */
     public Map<String, Boolean> getLiveEvents() {
-        // Logging at INFO level for now, consider DEBUG if too verbose for frequent calls
-        logger.info("Fetching all live events. Current eventStatuses size: {}", eventStatuses.size());
-        return eventStatuses.entrySet().stream()
-                .filter(Map.Entry::getValue)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        logger.debug("Fetching all live events. Currently live: {}", liveEvents.size());
+        return liveEventsView;
+    }
+
+    public int getLiveEventCount() {
+        return liveEvents.size();
     }
 
     public boolean isEventLive(String eventId) {
-        boolean isLive = eventStatuses.getOrDefault(eventId, false);
-        // Logging at INFO level for now, consider DEBUG if too verbose for frequent calls
-        logger.info("Checking liveness for event {}: {}", eventId, isLive ? "LIVE" : "NOT LIVE");
+        boolean isLive = liveEvents.containsKey(eventId);
+        logger.debug("Checking liveness for event {}: {}", eventId, isLive ? "LIVE" : "NOT LIVE");
         return isLive;
     }
+
+    /**
+     * Like {@link #isEventLive}, but if an update of the event is being applied right now, waits for it to
+     * complete, listeners included, and returns its result.
+     */
+    public boolean isEventLiveLocked(String eventId) {
+        boolean[] live = new boolean[1];
+        liveEvents.compute(eventId, (id, current) -> {
+            live[0] = current != null;
+            return current;
+        });
+        return live[0];
+    }
+
+    // Resolved on first use rather than in the constructor, so that listeners may depend on this service
+    private List<EventStatusListener> listeners() {
+        List<EventStatusListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerProvider.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.restcalls.service;
+
+/**
+ * Callback for components that keep per-event state derived from {@link EventService}.
+ * Every bean implementing this interface is notified of each status update, on the thread that made it.
+ * The event's map entry stays locked during the call, so implementations must be quick and must not update
+ * event statuses themselves.
+ */
+public interface EventStatusListener {
+
+    void onStatusUpdated(String eventId, boolean live);
+}
@@ -0,0 +1,108 @@
+package com.example.restcalls.service;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.dto.Score;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last score published per event so that unchanged updates can be suppressed.
+ * An unchanged score is still let through once {@code heartbeatInterval} has passed since the last
+ * publish, if a heartbeat is configured. Scores are recorded when an update is accepted for publishing, so that
+ * updates still awaiting acknowledgement are suppressed too; entries are evicted when publishing an update of the
+ * event fails, so that its score is published again, and when the event goes not live.
+ * <p>
+ * Scores are kept packed (see {@link Score}) in one mutable entry per event, so recording a publish does not
+ * allocate once the event has an entry.
+ */
+@Component
+public class LastPublishedScoreCache implements EventStatusListener, PublishFailureListener {
+
+    private final PublisherProperties publisherProperties;
+    private final Map<String, PublishedScore> lastPublished = new ConcurrentHashMap<>();
+
+    public LastPublishedScoreCache(PublisherProperties publisherProperties) {
+        this.publisherProperties = publisherProperties;
+    }
+
+    /**
+     * Returns whether the update carries the same score as the last one published for its event and
+     * no heartbeat is due yet. Always {@code false} when change-only publishing is disabled.
+     */
+    public boolean isUnchanged(MockApiResponse response, long nowMillis) {
+        if (!publisherProperties.isChangeOnly()) {
+            return false;
+        }
+        PublishedScore last = lastPublished.get(response.getEventId());
+        if (last == null) {
+            return false;
+        }
+        long publishedAt;
+        synchronized (last) {
+            if (!last.matches(response.getCurrentScore())) {
+                return false;
+            }
+            publishedAt = last.publishedAt;
+        }
+        Duration heartbeat = publisherProperties.getHeartbeatInterval();
+        return heartbeat == null || heartbeat.isZero() || nowMillis - publishedAt < heartbeat.toMillis();
+    }
+
+    /**
+     * Records the update as the latest one published for its event.
+     */
+    public void recordPublished(MockApiResponse response, long nowMillis) {
+        PublishedScore last = lastPublished.get(response.getEventId());
+        if (last == null) {
+            last = lastPublished.computeIfAbsent(response.getEventId(), eventId -> new PublishedScore());
+        }
+        synchronized (last) {
+            last.set(response.getCurrentScore(), nowMillis);
+        }
+    }
+
+    @Override
+    public void onStatusUpdated(String eventId, boolean live) {
+        if (!live) {
+            lastPublished.remove(eventId);
+        }
+    }
+
+    /**
+     * Forgets the event's last score. A newer score of the event accepted in the meantime is forgotten as well and
+     * published once more, which is harmless, whereas keeping the failed one would suppress it until it changes.
+     */
+    @Override
+    public void onPublishFailed(String eventId) {
+        lastPublished.remove(eventId);
+    }
+
+    public int size() {
+        return lastPublished.size();
+    }
+
+    private static final class PublishedScore {
+
+        private long packedScore;
+        // Only set for scores that do not parse as "home:away"
+        private String rawScore;
+        private long publishedAt;
+
+        void set(String score, long publishedAt) {
+            this.packedScore = Score.parse(score);
+            this.rawScore = packedScore == Score.UNPARSEABLE ? score : null;
+            this.publishedAt = publishedAt;
+        }
+
+        boolean matches(String score) {
+            long packed = Score.parse(score);
+            return packed == Score.UNPARSEABLE ? packedScore == Score.UNPARSEABLE && Objects.equals(rawScore, score)
+                    : packed == packedScore;
+        }
+    }
+}
@@ -1,58 +1,120 @@
 package com.example.restcalls.service;
 
+import com.example.restcalls.config.PublisherProperties;
 import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.logging.RateLimitedLogger;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.outbox.PublishOutbox;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
 @Service
-@RequiredArgsConstructor
 public class MessageProducerService {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageProducerService.class);
-    private final ObjectMapper objectMapper;
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(MessageProducerService.class, Duration.ofSeconds(10));
+    private final ScoreUpdateEncoder encoder;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final PublisherProperties publisherProperties;
+    private final EventMetrics eventMetrics;
+    private final Semaphore inFlight;
+    private final PublishOutbox outbox;
+    private final List<PublishFailureListener> failureListeners;
+
+    public MessageProducerService(ObjectMapper objectMapper, KafkaTemplate<String, byte[]> kafkaTemplate,
+                                  PublisherProperties publisherProperties, EventMetrics eventMetrics) {
+        this(objectMapper, kafkaTemplate, publisherProperties, eventMetrics, (PublishOutbox) null, List.of());
+    }
+
+    @Autowired
+    public MessageProducerService(ObjectMapper objectMapper, KafkaTemplate<String, byte[]> kafkaTemplate,
+                                  PublisherProperties publisherProperties, EventMetrics eventMetrics,
+                                  ObjectProvider<PublishOutbox> outbox, ObjectProvider<PublishFailureListener> failureListeners) {
+        this(objectMapper, kafkaTemplate, publisherProperties, eventMetrics, outbox.getIfAvailable(),
+                failureListeners.orderedStream().toList());
+    }
+
+    MessageProducerService(ObjectMapper objectMapper, KafkaTemplate<String, byte[]> kafkaTemplate,
+                           PublisherProperties publisherProperties, EventMetrics eventMetrics, PublishOutbox outbox,
+                           List<PublishFailureListener> failureListeners) {
+        this.encoder = new ScoreUpdateEncoder(objectMapper);
+        this.kafkaTemplate = kafkaTemplate;
+        this.publisherProperties = publisherProperties;
+        this.eventMetrics = eventMetrics;
+        this.inFlight = new Semaphore(publisherProperties.getMaxInFlight());
+        this.outbox = outbox;
+        this.failureListeners = failureListeners;
+    }
 
-    public void sendMessage(String topic, MockApiResponse payload) {
+    /**
+     * Publishes the update asynchronously as JSON bytes (see {@link ScoreUpdateEncoder}), keyed by eventId so
+     * that all updates of an event land on the same partition in order. With the outbox enabled the update is
+     * handed to {@link PublishOutbox}, which publishes it even if the broker is unavailable for a while.
+     * Otherwise it is handed to the producer directly. Transient failures are retried by the idempotent producer
+     * itself within {@code delivery.timeout.ms}, which keeps the event's updates in order; a send that still fails
+     * is given up rather than sent again later, when it could land behind a newer update of the same event, and
+     * {@link PublishFailureListener}s are notified. When {@code maxInFlight} sends are already awaiting an acknowledgement the update is
+     * dropped instead of blocking the caller.
+     *
+     * @return whether the update was accepted for publishing
+     */
+    public boolean sendMessage(String topic, MockApiResponse payload) {
         if (payload == null) {
             logger.warn("Attempted to send a null payload to topic [{}]. Message not sent.", topic);
-            return;
+            return false;
         }
         try {
-            String jsonPayload = objectMapper.writeValueAsString(payload);
-            // Using structured logging for better parseability if needed
-            logger.info("Simulating message publishing. Topic: '{}', EventId: '{}', Score: '{}'",
-                    topic, payload.getEventId(), payload.getCurrentScore());
-
-            // In a real scenario with Kafka, implement retry logic here,
-            // possibly using Spring Retry's @Retryable or KafkaTemplate's built-in retries.
-            // For now, we are just logging the attempt.
-            // Example conceptual retry:
-            // int maxRetries = 3;
-            // for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            //     try {
-            //         // kafkaTemplate.send(topic, jsonPayload);
-            //         logger.info("Attempt {} to send to topic [{}]: {}", attempt, topic, jsonPayload);
-            //         break; // Exit loop if successful
-            //     } catch (Exception e) {
-            //         logger.error("Attempt {} failed to send to topic [{}]. Error: {}", attempt, topic, e.getMessage());
-            //         if (attempt == maxRetries) {
-            //             logger.error("All retry attempts failed for topic [{}]", topic);
-            //             // Handle final failure (e.g., send to dead-letter queue)
-            //         }
-            //         // Thread.sleep(retryDelay); // Optional: wait before retrying
-            //     }
-            // }
-
+            long start = System.nanoTime();
+            byte[] jsonPayload = encoder.encode(payload);
+            eventMetrics.recordSerialization(start);
+            if (outbox != null) {
+                return outbox.offer(topic, payload.getEventId(), jsonPayload);
+            }
+            if (!inFlight.tryAcquire()) {
+                eventMetrics.recordPublishDropped();
+                rateLimitedLogger.warn("Dropping update for EventId '{}': {} messages to topic '{}' are still awaiting acknowledgement.",
+                        payload.getEventId(), publisherProperties.getMaxInFlight(), topic);
+                return false;
+            }
+            send(topic, payload.getEventId(), jsonPayload, System.nanoTime());
+            return true;
         } catch (JsonProcessingException e) {
             logger.error("Error converting MockApiResponse with eventId '{}' to JSON for topic '{}'. Error: {}",
                          payload.getEventId(), topic, e.getMessage(), e);
             // Handle JSON conversion error, e.g., by not sending the message or sending a fallback
+            return false;
+        }
+    }
+
+    private void send(String topic, String key, byte[] jsonPayload, long startNanos) {
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, jsonPayload);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
         }
+        future.whenComplete((result, ex) -> {
+            inFlight.release();
+            eventMetrics.recordPublish(ex == null, startNanos);
+            if (ex != null) {
+                rateLimitedLogger.error("Failed to publish EventId '{}' to topic '{}'. Error: {}", key, topic, ex.getMessage());
+                failureListeners.forEach(listener -> listener.onPublishFailed(key));
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Published to topic '{}', EventId '{}', partition {}, offset {}.", topic, key,
+                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            }
+        });
     }
 }
@@ -0,0 +1,10 @@
+package com.example.restcalls.service;
+
+/**
+ * Callback for components that assume an accepted update gets published. Every bean implementing this interface
+ * is notified when publishing an update has been given up on, on the thread that gave up.
+ */
+public interface PublishFailureListener {
+
+    void onPublishFailed(String eventId);
+}
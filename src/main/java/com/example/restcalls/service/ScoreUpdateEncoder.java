@@ -0,0 +1,80 @@
+package com.example.restcalls.service;
+
+import com.example.restcalls.dto.MockApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes score updates as the JSON published to Kafka, {@code {"eventId":"...","currentScore":"..."}}, the
+ * same bytes a default {@link ObjectMapper} writes for {@link MockApiResponse}.
+ * <p>
+ * Event ids and scores are plain ASCII in practice; those are copied straight into a {@code byte[]} sized
+ * exactly for the message, which is the only allocation. The producer keeps a reference to the value until the
+ * send completes and retries send it again, so a shared scratch buffer would not save that array anyway.
+ * Anything that would need escaping or UTF-8 encoding is left to the {@link ObjectMapper}.
+ */
+public class ScoreUpdateEncoder {
+
+    private static final byte[] PREFIX = "{\"eventId\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SCORE_FIELD = ",\"currentScore\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+
+    public ScoreUpdateEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public byte[] encode(MockApiResponse update) throws JsonProcessingException {
+        String eventId = update.getEventId();
+        String score = update.getCurrentScore();
+        int eventIdLength = encodedLength(eventId);
+        int scoreLength = encodedLength(score);
+        if (eventIdLength < 0 || scoreLength < 0) {
+            return objectMapper.writeValueAsBytes(update);
+        }
+
+        byte[] json = new byte[PREFIX.length + eventIdLength + SCORE_FIELD.length + scoreLength + 1];
+        int position = put(json, 0, PREFIX);
+        position = putString(json, position, eventId);
+        position = put(json, position, SCORE_FIELD);
+        position = putString(json, position, score);
+        json[position] = '}';
+        return json;
+    }
+
+    /**
+     * Returns the length of the value as a JSON literal, or -1 if it cannot be copied byte for byte.
+     */
+    private static int encodedLength(String value) {
+        if (value == null) {
+            return NULL.length;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                return -1;
+            }
+        }
+        return value.length() + 2;
+    }
+
+    private static int put(byte[] json, int position, byte[] bytes) {
+        System.arraycopy(bytes, 0, json, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static int putString(byte[] json, int position, String value) {
+        if (value == null) {
+            return put(json, position, NULL);
+        }
+        json[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            json[position++] = (byte) value.charAt(i);
+        }
+        json[position++] = '"';
+        return position;
+    }
+}
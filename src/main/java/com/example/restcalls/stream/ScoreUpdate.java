@@ -0,0 +1,7 @@
+package com.example.restcalls.stream;
+
+/**
+ * A score update as pushed to subscribers, serialized once and shared by all of them.
+ */
+record ScoreUpdate(String eventId, String json) {
+}
@@ -0,0 +1,174 @@
+package com.example.restcalls.stream;
+
+import com.example.restcalls.config.StreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.service.ScoreUpdateEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fans score updates out to SSE subscribers. {@link #publish} only parks the update with each interested
+ * subscriber and returns; writing to the connections happens on a small dispatcher pool. A subscriber that
+ * cannot keep up gets the latest score of each event instead of every intermediate one, and never holds more
+ * than {@code maxPendingPerSubscriber} undelivered events, so neither the scheduler nor memory depends on how
+ * fast clients read. A subscriber whose write has not finished within {@code writeTimeout} is dropped, and is
+ * sent nothing more in the meantime, so stalled clients cannot pile up work for the dispatcher threads.
+ */
+@Component
+public class ScoreUpdateBroadcaster implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreUpdateBroadcaster.class);
+
+    private final StreamProperties properties;
+    private final ScoreUpdateEncoder encoder;
+    private final ScheduledExecutorService dispatcher;
+    private final Set<StreamSubscriber> allEventsSubscribers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<StreamSubscriber>> subscribersByEvent = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public ScoreUpdateBroadcaster(StreamProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.encoder = new ScoreUpdateEncoder(objectMapper);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("event-stream-");
+        threadFactory.setDaemon(true);
+        this.dispatcher = new ScheduledThreadPoolExecutor(properties.getDispatcherThreads(), threadFactory);
+        long heartbeat = properties.getHeartbeatInterval().toMillis();
+        dispatcher.scheduleWithFixedDelay(this::sendHeartbeats, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a subscription to the given events, or to all events if {@code eventIds} is empty.
+     *
+     * @return the emitter to hand back to Spring MVC, or empty if this instance already serves
+     *         {@code maxSubscribers} subscribers
+     */
+    public Optional<SseEmitter> subscribe(Collection<String> eventIds) {
+        return subscribe(eventIds, new SseEmitter(properties.getSubscriptionTimeout().toMillis()));
+    }
+
+    Optional<SseEmitter> subscribe(Collection<String> eventIds, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        StreamSubscriber subscriber = new StreamSubscriber(emitter, eventIds.isEmpty() ? null : Set.copyOf(eventIds),
+                properties.getMaxPendingPerSubscriber());
+        if (subscriber.getEventIds() == null) {
+            allEventsSubscribers.add(subscriber);
+        } else {
+            for (String eventId : subscriber.getEventIds()) {
+                // Added under the entry's lock, so that unsubscribe cannot drop the set for being empty meanwhile
+                subscribersByEvent.compute(eventId, (id, subscribers) -> {
+                    Set<StreamSubscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.<StreamSubscriber>newKeySet();
+                    set.add(subscriber);
+                    return set;
+                });
+            }
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        logger.debug("New stream subscriber for {}; {} subscribers.",
+                subscriber.getEventIds() == null ? "all events" : subscriber.getEventIds(), subscriberCount.get());
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Hands the update to every subscriber of its event without waiting for any of them.
+     */
+    public void publish(MockApiResponse response) {
+        Set<StreamSubscriber> eventSubscribers = subscribersByEvent.get(response.getEventId());
+        if (allEventsSubscribers.isEmpty() && (eventSubscribers == null || eventSubscribers.isEmpty())) {
+            return;
+        }
+        ScoreUpdate update;
+        try {
+            update = new ScoreUpdate(response.getEventId(), new String(encoder.encode(response), StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize update of event {} for stream subscribers: {}", response.getEventId(), e.getMessage());
+            return;
+        }
+        for (StreamSubscriber subscriber : allEventsSubscribers) {
+            subscriber.offer(update, dispatcher, () -> fail(subscriber));
+        }
+        if (eventSubscribers != null) {
+            for (StreamSubscriber subscriber : eventSubscribers) {
+                subscriber.offer(update, dispatcher, () -> fail(subscriber));
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void sendHeartbeats() {
+        long now = System.nanoTime();
+        long writeTimeout = properties.getWriteTimeout().toNanos();
+        forEachSubscriber(subscriber -> {
+            if (subscriber.isWriteOverdue(now, writeTimeout)) {
+                logger.debug("Dropping stream subscriber whose write has not finished within {}.", properties.getWriteTimeout());
+                fail(subscriber);
+            } else {
+                subscriber.requestHeartbeat(dispatcher, () -> fail(subscriber));
+            }
+        });
+    }
+
+    private void forEachSubscriber(Consumer<StreamSubscriber> action) {
+        allEventsSubscribers.forEach(action);
+        subscribersByEvent.values().stream().flatMap(Set::stream).distinct().forEach(action);
+    }
+
+    private void fail(StreamSubscriber subscriber) {
+        if (unsubscribe(subscriber)) {
+            subscriber.getEmitter().complete();
+        }
+    }
+
+    private boolean unsubscribe(StreamSubscriber subscriber) {
+        boolean removed;
+        if (subscriber.getEventIds() == null) {
+            removed = allEventsSubscribers.remove(subscriber);
+        } else {
+            boolean[] found = new boolean[1];
+            for (String eventId : subscriber.getEventIds()) {
+                subscribersByEvent.computeIfPresent(eventId, (id, set) -> {
+                    found[0] |= set.remove(subscriber);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+            removed = found[0];
+        }
+        if (removed) {
+            subscriberCount.decrementAndGet();
+            logger.debug("Stream subscriber left after {} coalesced and {} dropped updates; {} subscribers.",
+                    subscriber.getCoalesced(), subscriber.getDropped(), subscriberCount.get());
+        }
+        return removed;
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        forEachSubscriber(subscriber -> subscriber.getEmitter().complete());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.restcalls.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE connection. Updates are parked in a map keyed by event id, so a newer score replaces an undelivered
+ * older one, and written by a dispatcher thread. At most one drain per subscriber is queued or running at a time,
+ * which keeps its updates in order and stops a slow client from tying up more than one dispatcher thread.
+ * Keep-alive comments take the same path, so they are never written concurrently with updates and never pile up
+ * behind a write that has not finished.
+ */
+class StreamSubscriber {
+
+    private final SseEmitter emitter;
+    /** Event ids this subscriber wants, or {@code null} for all events. */
+    private final Set<String> eventIds;
+    private final int maxPending;
+    private final Map<String, ScoreUpdate> pending = new LinkedHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean heartbeatDue;
+    private volatile boolean writing;
+    private volatile long writeStartedNanos;
+    private long coalesced;
+    private long dropped;
+
+    StreamSubscriber(SseEmitter emitter, Set<String> eventIds, int maxPending) {
+        this.emitter = emitter;
+        this.eventIds = eventIds;
+        this.maxPending = maxPending;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<String> getEventIds() {
+        return eventIds;
+    }
+
+    /**
+     * Parks the update and makes sure a drain is on its way. Never blocks on the client.
+     */
+    void offer(ScoreUpdate update, Executor dispatcher, Runnable onFailure) {
+        synchronized (pending) {
+            if (pending.put(update.eventId(), update) != null) {
+                coalesced++;
+            } else if (pending.size() > maxPending) {
+                Iterator<String> oldest = pending.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped++;
+            }
+        }
+        scheduleDrain(dispatcher, onFailure);
+    }
+
+    /**
+     * Asks for a keep-alive comment, unless updates go out before it anyway.
+     */
+    void requestHeartbeat(Executor dispatcher, Runnable onFailure) {
+        heartbeatDue = true;
+        scheduleDrain(dispatcher, onFailure);
+    }
+
+    /**
+     * Whether a write to this subscriber started more than {@code timeoutNanos} before {@code nowNanos} and has
+     * not finished yet.
+     */
+    boolean isWriteOverdue(long nowNanos, long timeoutNanos) {
+        return writing && nowNanos - writeStartedNanos > timeoutNanos;
+    }
+
+    private void scheduleDrain(Executor dispatcher, Runnable onFailure) {
+        if (drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(dispatcher, onFailure));
+        }
+    }
+
+    private void drain(Executor dispatcher, Runnable onFailure) {
+        List<ScoreUpdate> updates;
+        synchronized (pending) {
+            updates = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        // Updates keep the connection alive just as well
+        boolean heartbeat = heartbeatDue;
+        heartbeatDue = false;
+        try {
+            if (!updates.isEmpty()) {
+                // All pending updates go out in one write and flush
+                Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                for (ScoreUpdate update : updates) {
+                    events.addAll(SseEmitter.event().name("score").id(update.eventId())
+                            .data(update.json(), MediaType.APPLICATION_JSON).build());
+                }
+                write(events);
+            } else if (heartbeat) {
+                write(SseEmitter.event().comment("keep-alive").build());
+            }
+        } catch (IOException | IllegalStateException e) {
+            onFailure.run();
+            return;
+        } finally {
+            drainScheduled.set(false);
+        }
+        boolean more;
+        synchronized (pending) {
+            more = !pending.isEmpty() || heartbeatDue;
+        }
+        if (more) {
+            scheduleDrain(dispatcher, onFailure);
+        }
+    }
+
+    private void write(Set<ResponseBodyEmitter.DataWithMediaType> events) throws IOException {
+        writeStartedNanos = System.nanoTime();
+        writing = true;
+        try {
+            emitter.send(events);
+        } finally {
+            writing = false;
+        }
+    }
+
+    long getCoalesced() {
+        synchronized (pending) {
+            return coalesced;
+        }
+    }
+
+    long getDropped() {
+        synchronized (pending) {
+            return dropped;
+        }
+    }
+}
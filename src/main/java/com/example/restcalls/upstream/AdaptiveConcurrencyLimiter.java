@@ -0,0 +1,80 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+
+/**
+ * AIMD concurrency limiter for upstream calls. A call is only admitted while fewer than {@code limit} calls
+ * are in flight. Every call that completes within {@code latencyThreshold} grows the limit by {@code 1/limit},
+ * i.e. by about one per limit's worth of calls; a call that is slower or fails shrinks it by
+ * {@code backoffRatio}. The limit therefore settles just below the concurrency at which upstream latency
+ * starts to degrade.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(UpstreamProperties.Limiter settings) {
+        this.minLimit = settings.getMinLimit();
+        this.maxLimit = settings.getMaxLimit();
+        this.latencyThresholdNanos = settings.getLatencyThreshold().toNanos();
+        this.backoffRatio = settings.getBackoffRatio();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, settings.getInitialLimit()));
+    }
+
+    /**
+     * Admits a call if the current limit allows it. Every admitted call must be followed by exactly one of
+     * {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Records a completed call; calls slower than the latency threshold count as a congestion signal.
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        inFlight--;
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Records a call that failed or timed out.
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        decrease();
+    }
+
+    /**
+     * Releases a call whose outcome says nothing about upstream capacity.
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
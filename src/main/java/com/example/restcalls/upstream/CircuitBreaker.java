@@ -0,0 +1,150 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for upstream calls. After {@code failureThreshold} consecutive failures it opens and
+ * rejects every call for {@code openDuration}. It then lets {@code halfOpenProbes} calls through: if they
+ * all succeed the circuit closes again, any failure reopens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private final Map<State, Long> transitionsInto = new EnumMap<>(State.class);
+    private long lastTransitionAt;
+
+    public CircuitBreaker(UpstreamProperties.CircuitBreaker settings) {
+        this(settings, System::nanoTime);
+    }
+
+    CircuitBreaker(UpstreamProperties.CircuitBreaker settings, LongSupplier nanoClock) {
+        this.failureThreshold = settings.getFailureThreshold();
+        this.openDurationNanos = settings.getOpenDuration().toNanos();
+        this.halfOpenProbes = settings.getHalfOpenProbes();
+        this.nanoClock = nanoClock;
+        for (State s : State.values()) {
+            transitionsInto.put(s, 0L);
+        }
+    }
+
+    /**
+     * Asks for permission to make a call. Every granted permission must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #releasePermission()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN, "open duration elapsed, probing upstream");
+                probesInFlight = 0;
+                probeSuccesses = 0;
+                // fall through to the half-open check
+            case HALF_OPEN:
+            default:
+                if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                    return false;
+                }
+                probesInFlight++;
+                return true;
+        }
+    }
+
+    /**
+     * Returns whether a call could currently be permitted, without reserving a probe.
+     */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || nanoClock.getAsLong() - openedAt >= openDurationNanos;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+            if (++probeSuccesses >= halfOpenProbes) {
+                transitionTo(State.CLOSED, probeSuccesses + " probe call(s) succeeded");
+            }
+        }
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+            open("probe call failed");
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open(consecutiveFailures + " consecutive failures");
+        }
+    }
+
+    /**
+     * Returns a permission that was granted but not used for a call.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Number of transitions into each state since startup.
+     */
+    public synchronized Map<State, Long> getTransitionCounts() {
+        return new EnumMap<>(transitionsInto);
+    }
+
+    public synchronized long getTransitionCount(State into) {
+        return transitionsInto.getOrDefault(into, 0L);
+    }
+
+    /**
+     * {@link System#nanoTime()} of the latest transition, or 0 if the breaker never left CLOSED.
+     */
+    public synchronized long getLastTransitionNanos() {
+        return lastTransitionAt;
+    }
+
+    private void open(String reason) {
+        openedAt = nanoClock.getAsLong();
+        transitionTo(State.OPEN, reason);
+    }
+
+    private void transitionTo(State next, String reason) {
+        logger.warn("Upstream circuit breaker {} -> {}: {}", state, next, reason);
+        state = next;
+        consecutiveFailures = 0;
+        lastTransitionAt = nanoClock.getAsLong();
+        transitionsInto.merge(next, 1L, Long::sum);
+    }
+}
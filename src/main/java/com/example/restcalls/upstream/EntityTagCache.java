@@ -0,0 +1,55 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.service.EventStatusListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last tagged response seen per event, so that the next fetch of the event can be made
+ * conditional on its entity tag and a 304 Not Modified answered with the remembered data. Responses without a
+ * tag are not kept. Entries are evicted when an event goes not live.
+ * <p>
+ * Holds nothing when {@code events.upstream.conditional-requests} is off, which makes every fetch unconditional.
+ */
+@Component
+public class EntityTagCache implements EventStatusListener {
+
+    private final boolean enabled;
+    private final Map<String, TaggedResponse> lastSeen = new ConcurrentHashMap<>();
+
+    public EntityTagCache(UpstreamProperties upstreamProperties) {
+        this.enabled = upstreamProperties.isConditionalRequests();
+    }
+
+    /**
+     * @return the last tagged response seen for the event, or {@code null}
+     */
+    public TaggedResponse get(String eventId) {
+        return lastSeen.get(eventId);
+    }
+
+    /**
+     * Records the response as the latest one seen for the event; a missing response or tag forgets the event.
+     */
+    public void put(String eventId, TaggedResponse response) {
+        if (enabled && response != null && response.etag() != null) {
+            lastSeen.put(eventId, response);
+        } else {
+            lastSeen.remove(eventId);
+        }
+    }
+
+    @Override
+    public void onStatusUpdated(String eventId, boolean live) {
+        if (!live) {
+            lastSeen.remove(eventId);
+        }
+    }
+
+    public int size() {
+        return lastSeen.size();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sits in front of the upstream fetches so that an event is never fetched twice at the same time: a caller
+ * asking for an event that is already being fetched waits for that call and gets its result, or its exception.
+ * Results are kept for {@code events.upstream.cache.ttl} in a bounded Caffeine cache (W-TinyLFU eviction) and
+ * served from there until they expire. Empty responses and failures are not cached.
+ * <p>
+ * The caller passes the fetch to run on a miss, and it runs on the caller's thread, so the upstream client's
+ * limiter and circuit breaker still see every real call.
+ */
+@Component
+public class SingleFlightScoreCache implements MeterBinder {
+
+    private final Cache<String, MockApiResponse> cache;
+    private final Map<String, CompletableFuture<MockApiResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SingleFlightScoreCache(UpstreamProperties upstreamProperties) {
+        UpstreamProperties.Cache settings = upstreamProperties.getCache();
+        this.cache = settings.getTtl().isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getTtl())
+                .build();
+    }
+
+    /**
+     * Returns the cached score of the event, joins a fetch of it already in flight, or else runs {@code fetch}.
+     *
+     * @return the response, or {@code null} if the upstream had no data for the event
+     */
+    public MockApiResponse fetchEvent(String eventId, Function<String, MockApiResponse> fetch) {
+        MockApiResponse cached = cache != null ? cache.getIfPresent(eventId) : null;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        CompletableFuture<MockApiResponse> call = new CompletableFuture<>();
+        CompletableFuture<MockApiResponse> running = inFlight.putIfAbsent(eventId, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        misses.increment();
+        try {
+            MockApiResponse response = fetch.apply(eventId);
+            complete(eventId, call, response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too, or callers that joined this fetch would wait forever
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(eventId, call);
+        }
+    }
+
+    /**
+     * Batch counterpart of {@link #fetchEvent}: cached events and events in flight elsewhere are not requested
+     * again, and the remaining ones are fetched with a single call to {@code fetch}.
+     *
+     * @return the responses found, in the order of {@code eventIds}; events without data are left out
+     */
+    public List<MockApiResponse> fetchEvents(List<String> eventIds, Function<List<String>, List<MockApiResponse>> fetch) {
+        MockApiResponse[] results = new MockApiResponse[eventIds.size()];
+        Map<String, CompletableFuture<MockApiResponse>> owned = new LinkedHashMap<>();
+        Map<Integer, CompletableFuture<MockApiResponse>> joined = new HashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            String eventId = eventIds.get(i);
+            MockApiResponse cached = cache != null ? cache.getIfPresent(eventId) : null;
+            if (cached != null) {
+                hits.increment();
+                results[i] = cached;
+                continue;
+            }
+            if (owned.containsKey(eventId)) {
+                continue;
+            }
+            CompletableFuture<MockApiResponse> call = new CompletableFuture<>();
+            CompletableFuture<MockApiResponse> running = inFlight.putIfAbsent(eventId, call);
+            if (running != null) {
+                coalesced.increment();
+                joined.put(i, running);
+            } else {
+                misses.increment();
+                owned.put(eventId, call);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            try {
+                Map<String, MockApiResponse> fetched = new HashMap<>();
+                for (MockApiResponse response : fetch.apply(new ArrayList<>(owned.keySet()))) {
+                    if (response != null) {
+                        fetched.put(response.getEventId(), response);
+                    }
+                }
+                owned.forEach((eventId, call) -> complete(eventId, call, fetched.get(eventId)));
+            } catch (Throwable e) {
+                owned.values().forEach(call -> call.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        // Only wait for other callers once our own calls are completed, so callers waiting on each other cannot deadlock
+        List<MockApiResponse> responses = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            MockApiResponse response = results[i];
+            if (response == null) {
+                CompletableFuture<MockApiResponse> call = joined.containsKey(i) ? joined.get(i) : owned.get(eventIds.get(i));
+                response = call != null ? await(call) : null;
+            }
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    private void complete(String eventId, CompletableFuture<MockApiResponse> call, MockApiResponse response) {
+        if (cache != null && response != null) {
+            cache.put(eventId, response);
+        }
+        call.complete(response);
+    }
+
+    private static MockApiResponse await(CompletableFuture<MockApiResponse> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registerLookups(registry, "hit", SingleFlightScoreCache::getHits);
+        registerLookups(registry, "coalesced", SingleFlightScoreCache::getCoalesced);
+        registerLookups(registry, "miss", SingleFlightScoreCache::getMisses);
+        Gauge.builder("events.upstream.cache.size", this, c -> c.cache != null ? c.cache.estimatedSize() : 0)
+                .description("Event scores currently cached")
+                .register(registry);
+    }
+
+    private void registerLookups(MeterRegistry registry, String result, ToDoubleFunction<SingleFlightScoreCache> count) {
+        FunctionCounter.builder("events.upstream.cache.lookups", this, count)
+                .description("Score lookups served from the cache (hit), by joining a fetch in flight (coalesced) or by a new upstream call (miss)")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.dto.MockApiResponse;
+
+/**
+ * Event data as served by the upstream, with the entity tag ({@code ETag}) it was served with, if any.
+ */
+public record TaggedResponse(MockApiResponse response, String etag) {
+}
@@ -0,0 +1,14 @@
+package com.example.restcalls.upstream;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when the caller gave up on an upstream call, for instance because the scheduler's tick deadline
+ * passed and interrupted it. The request is cancelled as well; it says nothing about the upstream's health.
+ */
+public class UpstreamCancelledException extends RestClientException {
+
+    public UpstreamCancelledException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Client for the upstream score API, built on the JDK {@link HttpClient}. A single client instance is shared
+ * by all callers, so connections are pooled and kept alive between requests, and HTTP/2 is negotiated where
+ * the server offers it. Every request carries its own timeout.
+ * <p>
+ * Calls pass through a {@link CircuitBreaker} and an {@link AdaptiveConcurrencyLimiter}; I/O errors, timeouts
+ * and 5xx responses count as upstream failures for both.
+ * <p>
+ * Failures surface as {@link RestClientException}s: {@link ResourceAccessException} for I/O errors and
+ * timeouts, {@link RestClientResponseException} for non-2xx responses, {@link UpstreamRejectedException}
+ * for calls refused by the breaker or the limiter, {@link UpstreamCancelledException} for calls the caller gave
+ * up on, which count for neither.
+ * <p>
+ * The breaker state and transitions, the concurrency limit and the calls in flight are exported as metrics.
+ */
+@Component
+public class UpstreamClient implements MeterBinder {
+
+    private final UpstreamProperties upstreamProperties;
+    private final ObjectMapper objectMapper;
+    // Built on first use: building it initializes the default SSLContext and starts the client's selector thread
+    private volatile HttpClient httpClient;
+    private final JavaType eventType;
+    private final JavaType eventListType;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public UpstreamClient(UpstreamProperties upstreamProperties, ObjectMapper objectMapper) {
+        this.upstreamProperties = upstreamProperties;
+        this.objectMapper = objectMapper;
+        this.eventType = objectMapper.constructType(MockApiResponse.class);
+        this.eventListType = objectMapper.getTypeFactory().constructCollectionType(List.class, MockApiResponse.class);
+        this.circuitBreaker = new CircuitBreaker(upstreamProperties.getCircuitBreaker());
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(upstreamProperties.getLimiter());
+    }
+
+    /**
+     * Fetches the current data of an event, blocking until the response arrives or the request times out.
+     *
+     * @return the event data, or {@code null} if the upstream answered with an empty body
+     */
+    public MockApiResponse fetchEvent(String eventId) {
+        return await(fetchEventAsync(eventId), eventUrl(eventId));
+    }
+
+    /**
+     * Fetches the current data of an event without blocking the caller. The returned future completes
+     * on one of the HTTP client's threads, exceptionally with a {@link RestClientException} on failure.
+     */
+    public CompletableFuture<MockApiResponse> fetchEventAsync(String eventId) {
+        return get(eventUrl(eventId), eventType);
+    }
+
+    /**
+     * Fetches the current data of an event, conditionally on the entity tag of {@code previous} if there is one:
+     * the tag is sent as {@code If-None-Match}, and if the upstream answers 304 Not Modified, {@code previous}
+     * itself is returned without a body having been read.
+     *
+     * @param previous the last tagged response seen for the event, or {@code null} for an unconditional fetch
+     * @return {@code previous} if not modified, otherwise the event data with the tag it was served with (which
+     * may be {@code null}); {@code null} if the upstream answered with an empty body
+     */
+    public TaggedResponse fetchEventIfModified(String eventId, TaggedResponse previous) {
+        URI uri = eventUrl(eventId);
+        String etag = previous != null ? previous.etag() : null;
+        return await(exchange(uri, etag, response -> {
+            if (etag != null && response.statusCode() == 304) {
+                return previous;
+            }
+            MockApiResponse event = readBody(response, uri, eventType);
+            return event == null ? null : new TaggedResponse(event, response.headers().firstValue("ETag").orElse(null));
+        }), uri);
+    }
+
+    /**
+     * Fetches the current data of several events in one round trip, blocking until the response arrives.
+     * Events unknown to the upstream are simply absent from the returned list.
+     */
+    public List<MockApiResponse> fetchEvents(List<String> eventIds) {
+        return await(fetchEventsAsync(eventIds), eventsUrl(eventIds));
+    }
+
+    /**
+     * Non-blocking form of {@link #fetchEvents(List)}.
+     */
+    public CompletableFuture<List<MockApiResponse>> fetchEventsAsync(List<String> eventIds) {
+        CompletableFuture<List<MockApiResponse>> events = get(eventsUrl(eventIds), eventListType);
+        return events.thenApply(list -> list == null ? List.of() : list);
+    }
+
+    public URI eventUrl(String eventId) {
+        return URI.create(upstreamProperties.getBaseUrl() + "/event/"
+                + UriUtils.encodePathSegment(eventId, StandardCharsets.UTF_8));
+    }
+
+    public URI eventsUrl(List<String> eventIds) {
+        StringBuilder url = new StringBuilder(upstreamProperties.getBaseUrl()).append("/events");
+        char separator = '?';
+        for (String eventId : eventIds) {
+            url.append(separator).append("ids=").append(UriUtils.encodeQueryParam(eventId, StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        return URI.create(url.toString());
+    }
+
+    /**
+     * Returns whether the circuit breaker would currently let calls through. Callers can check this once
+     * before a run of calls instead of collecting a rejection per call.
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("events.upstream.circuit.state", circuitBreaker, b -> b.getState() == state ? 1 : 0)
+                    .description("1 for the state the upstream circuit breaker is in, 0 for the others")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+            FunctionCounter.builder("events.upstream.circuit.transitions", circuitBreaker, b -> b.getTransitionCount(state))
+                    .description("Transitions of the upstream circuit breaker into the state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        Gauge.builder("events.upstream.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current limit on concurrent upstream calls")
+                .register(registry);
+        Gauge.builder("events.upstream.in.flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Upstream calls in flight")
+                .register(registry);
+    }
+
+    private <T> CompletableFuture<T> get(URI uri, JavaType type) {
+        return exchange(uri, null, response -> readBody(response, uri, type));
+    }
+
+    private <T> CompletableFuture<T> exchange(URI uri, String ifNoneMatch, Function<HttpResponse<byte[]>, T> reader) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new UpstreamRejectedException("Upstream circuit breaker is open"));
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(new UpstreamRejectedException(
+                    "Upstream concurrency limit of " + concurrencyLimiter.getLimit() + " reached"));
+        }
+
+        long start = System.nanoTime();
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(upstreamProperties.getRequestTimeout())
+                .header("Accept", "application/json")
+                .GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange;
+        try {
+            exchange = httpClient().sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            concurrencyLimiter.onIgnored();
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(translate(e, uri));
+        }
+        // Recorded in a stage of its own, which runs even when the caller has cancelled the result
+        CompletableFuture<T> result = exchange
+                .whenComplete((response, ex) -> recordOutcome(response, ex, System.nanoTime() - start))
+                .handle((response, ex) -> {
+                    if (ex != null) {
+                        throw translate(ex, uri);
+                    }
+                    return reader.apply(response);
+                });
+        // Cancelling the returned future, as an interrupted caller does, aborts the request as well
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private HttpClient httpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                            .version(upstreamProperties.getHttpVersion())
+                            .connectTimeout(upstreamProperties.getConnectTimeout())
+                            .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private void recordOutcome(HttpResponse<byte[]> response, Throwable ex, long latencyNanos) {
+        if (ex instanceof CancellationException || (ex != null && ex.getCause() instanceof CancellationException)) {
+            // Given up on by the caller; neither a sign of overload nor of a failing upstream
+            concurrencyLimiter.onIgnored();
+            circuitBreaker.releasePermission();
+        } else if (ex != null || response.statusCode() >= 500) {
+            concurrencyLimiter.onDropped();
+            circuitBreaker.onFailure();
+        } else {
+            concurrencyLimiter.onSuccess(latencyNanos);
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, URI uri) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new UpstreamCancelledException("Interrupted during GET request for \"" + uri + "\"");
+        } catch (ExecutionException e) {
+            throw translate(e.getCause(), uri);
+        }
+    }
+
+    private <T> T readBody(HttpResponse<byte[]> response, URI uri, JavaType type) {
+        byte[] body = response.body();
+        if (response.statusCode() / 100 != 2) {
+            throw new RestClientResponseException("GET " + uri + " returned HTTP " + response.statusCode(),
+                    HttpStatusCode.valueOf(response.statusCode()), "", null, body, StandardCharsets.UTF_8);
+        }
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new RestClientException("Could not read response of GET " + uri, e);
+        }
+    }
+
+    private static RestClientException translate(Throwable ex, URI uri) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RestClientException restClientException) {
+            return restClientException;
+        }
+        if (cause instanceof CancellationException) {
+            return new UpstreamCancelledException("GET request for \"" + uri + "\" was cancelled");
+        }
+        if (cause instanceof IOException ioException) {
+            return new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + cause.getMessage(), ioException);
+        }
+        return new RestClientException("GET request for \"" + uri + "\" failed", cause);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.restcalls.upstream;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Exposes the state of the upstream circuit breaker and concurrency limiter under {@code /actuator/health}.
+ * An open circuit is reported as a detail rather than as DOWN: the application itself keeps working and
+ * will recover on its own once the upstream does.
+ */
+@Component("upstream")
+@RequiredArgsConstructor
+public class UpstreamHealthIndicator implements HealthIndicator {
+
+    private final UpstreamClient upstreamClient;
+
+    @Override
+    public Health health() {
+        CircuitBreaker circuitBreaker = upstreamClient.getCircuitBreaker();
+        AdaptiveConcurrencyLimiter limiter = upstreamClient.getConcurrencyLimiter();
+        Health.Builder health = Health.up()
+                .withDetail("circuitState", circuitBreaker.getState())
+                .withDetail("consecutiveFailures", circuitBreaker.getConsecutiveFailures())
+                .withDetail("circuitTransitions", circuitBreaker.getTransitionCounts())
+                .withDetail("concurrencyLimit", limiter.getLimit())
+                .withDetail("inFlight", limiter.getInFlight());
+        long lastTransition = circuitBreaker.getLastTransitionNanos();
+        if (lastTransition != 0) {
+            health.withDetail("lastTransitionAgo", Duration.ofNanos(System.nanoTime() - lastTransition).toString());
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.restcalls.upstream;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when an upstream call is refused locally, by the circuit breaker or the concurrency limiter,
+ * without a request being sent.
+ */
+public class UpstreamRejectedException extends RestClientException {
+
+    public UpstreamRejectedException(String msg) {
+        super(msg);
+    }
+}
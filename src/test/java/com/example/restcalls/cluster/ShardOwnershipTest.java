@@ -0,0 +1,105 @@
+package com.example.restcalls.cluster;
+
+import com.example.restcalls.config.ClusterProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardOwnershipTest {
+
+    private static final int EVENTS = 30_000;
+
+    private static ShardOwnership instance(String selfId, List<String> members) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setEnabled(true);
+        properties.setSelfId(selfId);
+        properties.setMembers(members);
+        return new ShardOwnership(properties);
+    }
+
+    /** Maps every event to the single instance owning it, failing if an event has zero or several owners. */
+    private static Map<String, String> ownersOf(List<ShardOwnership> instances) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < EVENTS; i++) {
+            String eventId = "event" + i;
+            List<String> claimedBy = new ArrayList<>();
+            for (ShardOwnership instance : instances) {
+                if (instance.owns(eventId)) {
+                    claimedBy.add(instance.getSelfId());
+                }
+            }
+            assertEquals(1, claimedBy.size(), "owners of " + eventId + ": " + claimedBy);
+            owners.put(eventId, claimedBy.get(0));
+        }
+        return owners;
+    }
+
+    @Test
+    void testDisabledOwnsEverything() {
+        ShardOwnership ownership = new ShardOwnership(new ClusterProperties());
+
+        assertTrue(ownership.owns("event1"));
+        assertTrue(ownership.owns("event2"));
+    }
+
+    @Test
+    void testEveryEventHasExactlyOneOwnerAndLoadIsBalanced() {
+        List<String> members = List.of("node-a", "node-b", "node-c");
+        List<ShardOwnership> instances = members.stream().map(self -> instance(self, members)).toList();
+
+        Map<String, String> owners = ownersOf(instances);
+
+        for (String member : members) {
+            long owned = owners.values().stream().filter(member::equals).count();
+            assertTrue(owned > EVENTS * 0.25 && owned < EVENTS * 0.42, member + " owns " + owned);
+        }
+    }
+
+    @Test
+    void testRebalanceMovesOnlyAffectedEvents() {
+        List<String> members = List.of("node-a", "node-b", "node-c");
+        List<ShardOwnership> instances = new ArrayList<>(members.stream().map(self -> instance(self, members)).toList());
+        Map<String, String> before = ownersOf(instances);
+
+        // node-d joins: every instance learns about it, and about a quarter of the events move to it
+        ShardOwnership nodeD = instance("node-d", List.of("node-a", "node-b", "node-c", "node-d"));
+        instances.forEach(instance -> instance.join("node-d"));
+        instances.add(nodeD);
+        Map<String, String> afterJoin = ownersOf(instances);
+
+        long moved = 0;
+        for (Map.Entry<String, String> entry : afterJoin.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                assertEquals("node-d", entry.getValue());
+                moved++;
+            }
+        }
+        assertTrue(moved > EVENTS * 0.15 && moved < EVENTS * 0.35, "moved " + moved);
+
+        // node-b leaves: only its events move, the rest stay put
+        instances.removeIf(instance -> instance.getSelfId().equals("node-b"));
+        instances.forEach(instance -> instance.leave("node-b"));
+        Map<String, String> afterLeave = ownersOf(instances);
+
+        for (Map.Entry<String, String> entry : afterLeave.entrySet()) {
+            if (!"node-b".equals(afterJoin.get(entry.getKey()))) {
+                assertEquals(afterJoin.get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    void testInstanceCannotRemoveItself() {
+        ShardOwnership ownership = instance("node-a", List.of("node-a", "node-b"));
+
+        ownership.leave("node-a");
+        ownership.setMembers(List.of("node-b"));
+
+        assertEquals(List.of("node-a", "node-b"), ownership.getMembers());
+    }
+}
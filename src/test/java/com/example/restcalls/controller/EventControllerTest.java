@@ -1,19 +1,29 @@
 package com.example.restcalls.controller;
 
+import com.example.restcalls.dto.BatchStatusUpdateResult;
 import com.example.restcalls.dto.EventStatusUpdate;
+import com.example.restcalls.metrics.EventMetrics;
 import com.example.restcalls.service.EventService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EventController.class)
@@ -28,6 +38,9 @@ public class EventControllerTest {
     @MockBean
     private EventService eventService;
 
+    @MockBean
+    private EventMetrics eventMetrics;
+
     @Test
     void testUpdateEventStatus_Success() throws Exception {
         EventStatusUpdate update = new EventStatusUpdate();
@@ -77,4 +90,107 @@ public class EventControllerTest {
 
         verify(eventService, never()).updateEventStatus(null, false);
     }
+
+    @Test
+    void testUpdateEventStatusBatch_JsonArray() throws Exception {
+        String body = "[{\"eventId\":\"evt1\",\"live\":true},"
+                + "{\"eventId\":\"\",\"live\":true},"
+                + "{\"eventId\":\"evt2\",\"live\":\"yes\"},"
+                + "{\"eventId\":\"evt3\",\"live\":false,\"extra\":{\"ignored\":[1,2]}},"
+                + "42]";
+
+        mockMvc.perform(post("/events/status/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejectedCount").value(3))
+                .andExpect(jsonPath("$.rejected.length()").value(3))
+                .andExpect(jsonPath("$.rejected[0].index").value(1))
+                .andExpect(jsonPath("$.rejected[1].index").value(2))
+                .andExpect(jsonPath("$.rejected[1].eventId").value("evt2"))
+                .andExpect(jsonPath("$.rejected[2].index").value(4));
+
+        verify(eventService, times(1)).updateEventStatus("evt1", true);
+        verify(eventService, times(1)).updateEventStatus("evt3", false);
+        verify(eventService, never()).updateEventStatus(eq("evt2"), anyBoolean());
+    }
+
+    @Test
+    void testUpdateEventStatusBatch_Ndjson() throws Exception {
+        String body = "{\"eventId\":\"evt1\",\"live\":true}\n{\"eventId\":\"evt2\",\"live\":true}\n";
+
+        mockMvc.perform(post("/events/status/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected.length()").value(0));
+
+        verify(eventService, times(1)).updateEventStatus("evt1", true);
+        verify(eventService, times(1)).updateEventStatus("evt2", true);
+    }
+
+    @Test
+    void testUpdateEventStatusBatch_ListsOnlyFirstRejections() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            body.append("{\"eventId\":\"\",\"live\":true}\n");
+        }
+
+        mockMvc.perform(post("/events/status/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejectedCount").value(250))
+                .andExpect(jsonPath("$.rejected.length()").value(BatchStatusUpdateResult.MAX_LISTED_REJECTIONS))
+                .andExpect(jsonPath("$.rejected[99].index").value(99));
+    }
+
+    @Test
+    void testUpdateEventStatusBatch_MalformedKeepsEarlierUpdates() throws Exception {
+        String body = "{\"eventId\":\"evt1\",\"live\":true}\n{\"eventId\":";
+
+        mockMvc.perform(post("/events/status/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected[0].index").value(1));
+
+        verify(eventService, times(1)).updateEventStatus("evt1", true);
+    }
+
+    @Test
+    void testGetMockEventData_NotModifiedForMatchingEntityTag() throws Exception {
+        String etag = mockMvc.perform(get("/events/mockapi/event/evt1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.eventId").value("evt1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/events/mockapi/event/evt1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/events/mockapi/event/evt1").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetMockEventDataBatch() throws Exception {
+        mockMvc.perform(get("/events/mockapi/events")
+                .param("ids", "evt1", "evt2", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].eventId").value("evt1"))
+                .andExpect(jsonPath("$[1].eventId").value("evt2"))
+                .andExpect(jsonPath("$[1].currentScore").isString());
+    }
+
+    @Test
+    void testGetMockEventDataBatch_BadRequest_NoIds() throws Exception {
+        mockMvc.perform(get("/events/mockapi/events"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.restcalls.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreTest {
+
+    @Test
+    void testParse_PacksBothSides() {
+        long score = Score.parse("3:12");
+
+        assertEquals(3, Score.home(score));
+        assertEquals(12, Score.away(score));
+        assertEquals(Score.pack(3, 12), score);
+        assertEquals("3:12", Score.format(score));
+    }
+
+    @Test
+    void testParse_RejectsNonScores() {
+        for (String value : new String[]{null, "", ":", "1:", ":1", "1-0", "a:b", "1:2:3", "99999999999:0"}) {
+            assertEquals(Score.UNPARSEABLE, Score.parse(value), value);
+        }
+    }
+
+    @Test
+    void testFormat_SmallScoresAreShared() {
+        assertSame(Score.format(2, 1), Score.format(2, 1));
+        assertEquals("120:7", Score.format(120, 7));
+    }
+}
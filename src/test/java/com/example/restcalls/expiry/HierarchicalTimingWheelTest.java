@@ -0,0 +1,110 @@
+package com.example.restcalls.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    void testExpiresKeysAtTheirDeadlineAcrossLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(4, 3, 0);
+        wheel.schedule("soon", 3);
+        wheel.schedule("second-level", 9);
+        wheel.schedule("third-level", 50);
+        wheel.schedule("beyond-top-level", 200);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(2, expired::add);
+        assertEquals(List.of(), expired);
+        wheel.advanceTo(3, expired::add);
+        assertEquals(List.of("soon"), expired);
+        wheel.advanceTo(8, expired::add);
+        assertEquals(List.of("soon"), expired);
+        wheel.advanceTo(9, expired::add);
+        wheel.advanceTo(49, expired::add);
+        assertEquals(List.of("soon", "second-level"), expired);
+        wheel.advanceTo(50, expired::add);
+        wheel.advanceTo(199, expired::add);
+        assertEquals(List.of("soon", "second-level", "third-level"), expired);
+        wheel.advanceTo(200, expired::add);
+        assertEquals(List.of("soon", "second-level", "third-level", "beyond-top-level"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testRescheduleAndCancel() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(4, 3, 0);
+        wheel.schedule("later", 5);
+        wheel.schedule("later", 20);
+        wheel.schedule("earlier", 20);
+        wheel.schedule("earlier", 6);
+        wheel.schedule("cancelled", 7);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+        // A key cancelled and scheduled again keeps only its new deadline
+        wheel.schedule("again", 4);
+        wheel.cancel("again");
+        wheel.schedule("again", 10);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(9, expired::add);
+        assertEquals(List.of("earlier"), expired);
+        wheel.advanceTo(19, expired::add);
+        assertEquals(List.of("earlier", "again"), expired);
+        wheel.advanceTo(20, expired::add);
+        assertEquals(List.of("earlier", "again", "later"), expired);
+        assertFalse(wheel.contains("later"));
+    }
+
+    @Test
+    void testPastDeadlineExpiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(4, 2, 100);
+        wheel.schedule("overdue", 10);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(100, expired::add);
+
+        assertEquals(List.of("overdue"), expired);
+    }
+
+    @Test
+    void testMatchesReferenceUnderRandomSchedules() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(8, 3, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(500);
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    long deadline = now + random.nextInt(2_000);
+                    wheel.schedule(key, deadline);
+                    deadlines.put(key, deadline);
+                }
+                case 2 -> assertEquals(deadlines.remove(key) != null, wheel.cancel(key));
+                default -> {
+                    long target = now + random.nextInt(40);
+                    List<Integer> expired = new ArrayList<>();
+                    wheel.advanceTo(target, expired::add);
+                    for (Integer expiredKey : expired) {
+                        Long deadline = deadlines.remove(expiredKey);
+                        assertNotNull(deadline, "expired a key that was not scheduled: " + expiredKey);
+                        assertTrue(deadline <= target, "expired " + expiredKey + " before its deadline");
+                    }
+                    long finalTarget = target;
+                    assertTrue(deadlines.values().stream().allMatch(deadline -> deadline > finalTarget),
+                            "a key past its deadline was not expired");
+                    now = target + 1;
+                }
+            }
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.restcalls.expiry;
+
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ClusterProperties;
+import com.example.restcalls.config.ExpiryProperties;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.EventStatusListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LiveEventExpiryTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final List<EventStatusListener> listeners = new ArrayList<>();
+    private EventService eventService;
+    private ShardOwnership shardOwnership = new ShardOwnership(new ClusterProperties());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<EventStatusListener> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenAnswer(invocation -> listeners.stream());
+        eventService = new EventService(provider);
+    }
+
+    private LiveEventExpiry expiry(Duration ttl) {
+        ExpiryProperties properties = new ExpiryProperties();
+        properties.setTtl(ttl);
+        properties.setTick(Duration.ofSeconds(1));
+        LiveEventExpiry expiry = new LiveEventExpiry(eventService, shardOwnership, properties, clock::get);
+        listeners.add(expiry);
+        return expiry;
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void testDemotesEventsWithoutActivity() {
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(30));
+        List<String> demoted = new ArrayList<>();
+        listeners.add((eventId, live) -> {
+            if (!live) {
+                demoted.add(eventId);
+            }
+        });
+        eventService.updateEventStatus("event1", true);
+        eventService.updateEventStatus("event2", true);
+
+        advance(Duration.ofSeconds(20));
+        expiry.refresh("event2");
+        advance(Duration.ofSeconds(10));
+        expiry.expireDue();
+
+        assertFalse(eventService.isEventLive("event1"));
+        assertTrue(eventService.isEventLive("event2"));
+        assertEquals(List.of("event1"), demoted);
+
+        advance(Duration.ofSeconds(19));
+        expiry.expireDue();
+        assertTrue(eventService.isEventLive("event2"));
+        advance(Duration.ofSeconds(1));
+        expiry.expireDue();
+        assertFalse(eventService.isEventLive("event2"));
+        assertEquals(2, expiry.getExpiredCount());
+        assertEquals(0, expiry.getTrackedCount());
+    }
+
+    @Test
+    void testStatusUpdatesRefreshAndCancelDeadlines() {
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(30));
+        eventService.updateEventStatus("event1", true);
+        advance(Duration.ofSeconds(25));
+        eventService.updateEventStatus("event1", true);
+        eventService.updateEventStatus("event2", true);
+        eventService.updateEventStatus("event2", false);
+        assertEquals(1, expiry.getTrackedCount());
+
+        advance(Duration.ofSeconds(10));
+        expiry.expireDue();
+        assertTrue(eventService.isEventLive("event1"));
+
+        // Marked live again after expiring: tracked afresh
+        advance(Duration.ofSeconds(20));
+        expiry.expireDue();
+        assertFalse(eventService.isEventLive("event1"));
+        eventService.updateEventStatus("event1", true);
+        assertEquals(1, expiry.getTrackedCount());
+    }
+
+    @Test
+    void testOnlyChangedScoresCountAsActivity() {
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(30));
+        eventService.updateEventStatus("event1", true);
+        eventService.updateEventStatus("event2", true);
+        expiry.recordScore("event1", "0:0");
+        expiry.recordScore("event2", "0:0");
+
+        advance(Duration.ofSeconds(20));
+        expiry.recordScore("event1", "0:0");
+        expiry.recordScore("event2", "1:0");
+        advance(Duration.ofSeconds(10));
+        expiry.expireDue();
+
+        assertFalse(eventService.isEventLive("event1"));
+        assertTrue(eventService.isEventLive("event2"));
+    }
+
+    @Test
+    void testClusterMode_ExpiresOnlyOwnedEvents() {
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(true);
+        clusterProperties.setSelfId("node-1");
+        clusterProperties.setMembers(List.of("node-1", "node-2"));
+        shardOwnership = new ShardOwnership(clusterProperties);
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(30));
+        String owned = IntStream.range(0, 100).mapToObj(i -> "event" + i).filter(shardOwnership::owns).findFirst().orElseThrow();
+        String other = IntStream.range(0, 100).mapToObj(i -> "event" + i).filter(id -> !shardOwnership.owns(id)).findFirst().orElseThrow();
+        eventService.updateEventStatus(owned, true);
+        eventService.updateEventStatus(other, true);
+
+        advance(Duration.ofSeconds(30));
+        expiry.expireDue();
+        assertFalse(eventService.isEventLive(owned));
+        assertTrue(eventService.isEventLive(other));
+        assertEquals(1, expiry.getTrackedCount());
+
+        // Taken over after a membership change: a full ttl from the last check
+        shardOwnership.setMembers(List.of("node-1"));
+        advance(Duration.ofSeconds(29));
+        expiry.expireDue();
+        assertTrue(eventService.isEventLive(other));
+        advance(Duration.ofSeconds(1));
+        expiry.expireDue();
+        assertFalse(eventService.isEventLive(other));
+    }
+
+    @Test
+    void testTracksRestoredEventsOnStartup() {
+        eventService.restoreEventStatus("restored", true);
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(30));
+        expiry.afterSingletonsInstantiated();
+        try {
+            advance(Duration.ofSeconds(30));
+            expiry.expireDue();
+            assertFalse(eventService.isEventLive("restored"));
+        } finally {
+            expiry.destroy();
+        }
+    }
+
+    @Test
+    void testDisabledWithZeroTtl() {
+        LiveEventExpiry expiry = expiry(Duration.ZERO);
+        expiry.afterSingletonsInstantiated();
+        eventService.updateEventStatus("event1", true);
+
+        advance(Duration.ofDays(365));
+        expiry.expireDue();
+
+        assertFalse(expiry.isEnabled());
+        assertTrue(eventService.isEventLive("event1"));
+        assertEquals(0, expiry.getTrackedCount());
+    }
+
+    @Test
+    void testReportsExpiredEventsAsMetric() {
+        LiveEventExpiry expiry = expiry(Duration.ofSeconds(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        expiry.bindTo(registry);
+        Stream.of("event1", "event2", "event3").forEach(eventId -> eventService.updateEventStatus(eventId, true));
+
+        advance(Duration.ofSeconds(2));
+        expiry.expireDue();
+
+        assertEquals(3, registry.get("events.expired").functionCounter().count());
+        assertEquals(0, eventService.getLiveEventCount());
+    }
+}
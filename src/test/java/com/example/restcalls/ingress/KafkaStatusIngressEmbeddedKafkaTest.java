@@ -0,0 +1,105 @@
+package com.example.restcalls.ingress;
+
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ClusterProperties;
+import com.example.restcalls.config.ExpiryProperties;
+import com.example.restcalls.config.IngressProperties;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(topics = KafkaStatusIngressEmbeddedKafkaTest.TOPIC, partitions = 1)
+public class KafkaStatusIngressEmbeddedKafkaTest {
+
+    static final String TOPIC = "event_status_updates";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(KafkaAutoConfiguration.class))
+            .withUserConfiguration(Dependencies.class, StatusIngressConfiguration.class, KafkaStatusIngress.class);
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(IngressProperties.class)
+    static class Dependencies {
+
+        @Bean
+        EventService eventService() {
+            return new EventService();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        EventMetrics eventMetrics() {
+            return new EventMetrics(new SimpleMeterRegistry());
+        }
+
+        @Bean
+        LiveEventExpiry liveEventExpiry(EventService eventService) {
+            return new LiveEventExpiry(eventService, new ShardOwnership(new ClusterProperties()), new ExpiryProperties());
+        }
+    }
+
+    @Test
+    void testAppliesRecordsAndCommitsTheirOffsets(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        contextRunner.withPropertyValues(
+                "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "events.ingress.kafka.enabled=true",
+                "events.ingress.kafka.group-id=ingress-test").run(context -> {
+            EventService eventService = context.getBean(EventService.class);
+            kafkaTemplate.send(TOPIC, "evtA", "{\"eventId\":\"evtA\",\"live\":true}");
+            kafkaTemplate.send(TOPIC, "evtB", "{\"eventId\":\"evtB\",\"live\":true}");
+            kafkaTemplate.send(TOPIC, "evtC", "{broken");
+            kafkaTemplate.send(TOPIC, "evtA", "{\"eventId\":\"evtA\",\"live\":false}");
+            kafkaTemplate.flush();
+
+            long deadline = System.currentTimeMillis() + 30_000;
+            long committed = -1;
+            while (committed < 4 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                var offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), "ingress-test", TOPIC, 0);
+                committed = offset == null ? -1 : offset.offset();
+            }
+
+            assertEquals(4, committed);
+            assertEquals(Map.of("evtB", true), eventService.getLiveEvents());
+        });
+        producerFactory.destroy();
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        contextRunner.run(context -> {
+            assertFalse(context.containsBean(StatusIngressConfiguration.CONTAINER_FACTORY));
+            assertTrue(context.getBeansOfType(KafkaStatusIngress.class).isEmpty());
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.restcalls.ingress;
+
+import com.example.restcalls.config.IngressProperties;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class KafkaStatusIngressTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EventService eventService = spy(new EventService());
+    private final LiveEventExpiry liveEventExpiry = mock(LiveEventExpiry.class);
+    private final KafkaStatusIngress ingress = new KafkaStatusIngress(eventService, new ObjectMapper(),
+            new EventMetrics(registry), liveEventExpiry, new IngressProperties());
+    private long offset;
+
+    private ConsumerRecord<String, byte[]> record(String key, String value) {
+        return new ConsumerRecord<>("event_status_updates", 0, offset++, key,
+                value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testApply_LastStatusPerEventWins() {
+        eventService.updateEventStatus("evt3", true);
+
+        int changed = ingress.apply(List.of(
+                record("evt1", "{\"eventId\":\"evt1\",\"live\":true}"),
+                record("evt2", "{\"eventId\":\"evt2\",\"live\":true}"),
+                record("evt1", "{\"eventId\":\"evt1\",\"live\":false}"),
+                record("evt3", "{\"eventId\":\"evt3\",\"live\":false}")));
+
+        assertEquals(2, changed);
+        assertEquals(Map.of("evt2", true), eventService.getLiveEvents());
+        assertEquals(2, registry.get("events.status.updates").tag("endpoint", "kafka").counter().count());
+    }
+
+    @Test
+    void testApply_RedeliveredBatchChangesNothing() {
+        List<ConsumerRecord<String, byte[]>> batch = List.of(
+                record("evt1", "{\"eventId\":\"evt1\",\"live\":true}"),
+                record("evt2", "{\"eventId\":\"evt2\",\"live\":true}"));
+
+        assertEquals(2, ingress.apply(batch));
+        assertEquals(0, ingress.apply(batch));
+
+        assertEquals(2, eventService.getLiveEventCount());
+        assertEquals(2, registry.get("events.status.updates").tag("endpoint", "kafka").counter().count());
+        // Still activity for expiry, even though the status did not change
+        verify(liveEventExpiry, times(2)).refresh("evt1");
+        verify(liveEventExpiry, times(2)).refresh("evt2");
+    }
+
+    @Test
+    void testApply_SkipsMalformedRecordsAndFallsBackToKey() {
+        int changed = ingress.apply(List.of(
+                record("evt1", "{\"live\":true}"),
+                record("evt2", "{not json"),
+                record("evt3", null),
+                record(null, "{\"live\":true}"),
+                record("evt4", "{\"eventId\":\"evt4\",\"live\":true}")));
+
+        assertEquals(2, changed);
+        assertTrue(eventService.isEventLive("evt1"));
+        assertTrue(eventService.isEventLive("evt4"));
+        assertEquals(2, eventService.getLiveEventCount());
+    }
+
+    @Test
+    void testOnStatusRecords_AcknowledgesAfterApplying() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        List<ConsumerRecord<String, byte[]>> batch = List.of(record("evt1", "{\"eventId\":\"evt1\",\"live\":true}"));
+
+        ingress.onStatusRecords(batch, acknowledgment);
+
+        var order = inOrder(eventService, acknowledgment);
+        order.verify(eventService).updateEventStatuses(Map.of("evt1", true));
+        order.verify(acknowledgment).acknowledge();
+    }
+}
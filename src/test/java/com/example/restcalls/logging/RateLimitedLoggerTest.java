@@ -0,0 +1,61 @@
+package com.example.restcalls.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitedLoggerTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RateLimitedLoggerTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final AtomicLong now = new AtomicLong();
+    private final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, Duration.ofSeconds(10), now::get);
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    @Test
+    void testRepeatedMessageLoggedOncePerInterval() {
+        for (int i = 0; i < 5; i++) {
+            rateLimitedLogger.error("Error calling mock API for event {}", "evt" + i);
+        }
+        now.set(TimeUnit.SECONDS.toNanos(10));
+        rateLimitedLogger.error("Error calling mock API for event {}", "evt5");
+
+        assertEquals(List.of(
+                "Error calling mock API for event evt0",
+                "Error calling mock API for event evt5 (4 similar messages suppressed)"), messages());
+    }
+
+    @Test
+    void testDifferentMessagesAreLimitedSeparately() {
+        rateLimitedLogger.error("Failed to publish EventId '{}'", "evt1");
+        rateLimitedLogger.warn("Dropping update for EventId '{}'", "evt1");
+        rateLimitedLogger.error("Failed to publish EventId '{}'", "evt2");
+
+        assertEquals(List.of("Failed to publish EventId 'evt1'", "Dropping update for EventId 'evt1'"), messages());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.restcalls.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EventMetrics metrics = new EventMetrics(registry);
+
+    @Test
+    void testTickLag_MeasuredAgainstFixedRateSchedule() {
+        long period = TimeUnit.SECONDS.toNanos(10);
+        metrics.recordTickStart(0, period);
+        metrics.recordTickStart(period + TimeUnit.MILLISECONDS.toNanos(300), period);
+        // A late run does not shift the schedule: the next run is due at 2 * period
+        metrics.recordTickStart(2 * period + TimeUnit.MILLISECONDS.toNanos(100), period);
+
+        Timer lag = registry.get("events.scheduler.tick.lag").timer();
+        assertEquals(3, lag.count());
+        assertEquals(400, lag.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(300, lag.max(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void testFetchTimers_SplitByRequestAndOutcome() {
+        long start = System.nanoTime();
+        metrics.recordFetch(false, EventMetrics.FetchOutcome.SUCCESS, start);
+        metrics.recordFetch(false, EventMetrics.FetchOutcome.SUCCESS, start);
+        metrics.recordFetch(false, EventMetrics.FetchOutcome.ERROR, start);
+        metrics.recordFetch(true, EventMetrics.FetchOutcome.REJECTED, start);
+
+        assertEquals(2, registry.get("events.upstream.fetch").tags("request", "single", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("events.upstream.fetch").tags("request", "single", "outcome", "error").timer().count());
+        assertEquals(1, registry.get("events.upstream.fetch").tags("request", "batch", "outcome", "rejected").timer().count());
+        assertEquals(0, registry.get("events.upstream.fetch").tags("request", "batch", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testStatusUpdates_CountedPerEndpoint() {
+        metrics.recordStatusUpdate();
+        metrics.recordBatchStatusUpdates(250);
+
+        assertEquals(1, registry.get("events.status.updates").tag("endpoint", "single").counter().count());
+        assertEquals(250, registry.get("events.status.updates").tag("endpoint", "batch").counter().count());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.restcalls.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxSpillTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private OutboxSpill open() throws Exception {
+        return new OutboxSpill(directory, SEGMENT_SIZE, 64 * 1024);
+    }
+
+    private static OutboxRecord record(String key, int version) {
+        return new OutboxRecord("topic", key, (key + ":" + version).getBytes(StandardCharsets.UTF_8), System.nanoTime());
+    }
+
+    private static String payload(OutboxSpill.Read read) {
+        return new String(read.record().payload(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testRestartResumesAfterLastRecordReleasedInOrder() throws Exception {
+        OutboxSpill spill = open();
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(spill.append(record("event1", i)));
+        }
+        OutboxSpill.Read first = spill.poll();
+        OutboxSpill.Read second = spill.poll();
+        // Acknowledged out of order: the first is still in flight when the process stops
+        spill.release(second);
+        assertEquals(3, spill.getPendingRecords());
+
+        OutboxSpill restarted = open();
+        assertEquals(3, restarted.getPendingRecords());
+        assertEquals("event1:1", payload(restarted.poll()));
+
+        spill.release(first);
+        assertEquals(1, spill.getPendingRecords());
+        restarted = open();
+        assertEquals(1, restarted.getPendingRecords());
+        assertEquals("event1:3", payload(restarted.poll()));
+    }
+
+    @Test
+    void testSegmentIsDeletedOnceAllItsRecordsAreReleased() throws Exception {
+        OutboxSpill spill = open();
+        byte[] payload = new byte[1500];
+        int count = 0;
+        while (count < 3) {
+            assertTrue(spill.append(new OutboxRecord("topic", "event" + count, payload, System.nanoTime())));
+            count++;
+        }
+        assertEquals(2, segmentCount(), "third record should have rolled over to a new segment");
+
+        OutboxSpill.Read first = spill.poll();
+        OutboxSpill.Read second = spill.poll();
+        OutboxSpill.Read third = spill.poll();
+        assertNull(spill.poll());
+        assertEquals(2, segmentCount());
+
+        spill.release(second);
+        spill.release(third);
+        assertEquals(2, segmentCount());
+        spill.release(first);
+        assertEquals(1, segmentCount());
+        assertTrue(spill.isEmpty());
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> segments = Files.list(directory)) {
+            return segments.count();
+        }
+    }
+}
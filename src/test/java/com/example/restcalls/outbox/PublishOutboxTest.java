@@ -0,0 +1,260 @@
+package com.example.restcalls.outbox;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.metrics.EventMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublishOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final PublisherProperties properties = new PublisherProperties();
+    private final FlakyKafkaTemplate kafkaTemplate = new FlakyKafkaTemplate();
+    private final List<PublishOutbox> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxInFlight(4);
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        properties.getOutbox().setMemoryCapacity(8);
+        properties.getOutbox().setDirectory(directory.toString());
+        properties.getOutbox().setSegmentSize(DataSize.ofKilobytes(4));
+        properties.getOutbox().setMaxSpillSize(DataSize.ofKilobytes(64));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        kafkaTemplate.down = false;
+        for (PublishOutbox outbox : started) {
+            outbox.destroy();
+        }
+    }
+
+    private PublishOutbox start() throws IOException {
+        PublishOutbox outbox = new PublishOutbox(kafkaTemplate, properties, new EventMetrics(new SimpleMeterRegistry()));
+        outbox.setShutdownGrace(Duration.ofMillis(200));
+        outbox.afterPropertiesSet();
+        started.add(outbox);
+        return outbox;
+    }
+
+    private static byte[] payload(String eventId, int version) {
+        return (eventId + ":" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPublishesInOrderOfAcceptance() throws Exception {
+        PublishOutbox outbox = start();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(outbox.offer("topic", "event" + (i % 3), payload("event" + (i % 3), i)));
+        }
+
+        awaitTrue(() -> kafkaTemplate.published.size() == 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("event" + (i % 3) + ":" + i, kafkaTemplate.published.get(i));
+        }
+    }
+
+    @Test
+    void testOutageSpillsWithoutBlockingAndCatchesUpInOrderPerEvent() throws Exception {
+        PublishOutbox outbox = start();
+        kafkaTemplate.down = true;
+        assertTrue(outbox.offer("topic", "event0", payload("event0", 0)));
+        awaitTrue(outbox::isBrokerFailing);
+
+        long start = System.nanoTime();
+        for (int i = 1; i < 500; i++) {
+            assertTrue(outbox.offer("topic", "event" + (i % 5), payload("event" + (i % 5), i)));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        assertTrue(outbox.getQueuedRecords() <= 8);
+        assertTrue(outbox.getSpilledRecords() > 0);
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() > 1, "spill should have rolled over to more segments");
+        }
+
+        kafkaTemplate.down = false;
+        awaitTrue(() -> kafkaTemplate.published.size() == 500);
+        int[] lastVersion = {-1, -1, -1, -1, -1};
+        for (String message : kafkaTemplate.published) {
+            int event = message.charAt("event".length()) - '0';
+            int version = Integer.parseInt(message.substring(message.indexOf(':') + 1));
+            assertTrue(version > lastVersion[event], "out of order: " + message);
+            lastVersion[event] = version;
+        }
+        awaitTrue(() -> outbox.getSpilledRecords() == 0 && !outbox.isBrokerFailing());
+    }
+
+    @Test
+    void testSpilledUpdatesSurviveRestart() throws Exception {
+        PublishOutbox outbox = start();
+        kafkaTemplate.down = true;
+        outbox.offer("topic", "event0", payload("event0", 0));
+        awaitTrue(outbox::isBrokerFailing);
+        for (int i = 1; i <= 20; i++) {
+            outbox.offer("topic", "event1", payload("event1", i));
+        }
+        assertEquals(20, outbox.getSpilledRecords());
+        // Simulate a crash: the dispatcher stops without draining anything
+        outbox.destroy();
+        started.clear();
+        kafkaTemplate.published.clear();
+
+        kafkaTemplate.down = false;
+        PublishOutbox restarted = start();
+        assertTrue(restarted.offer("topic", "event1", payload("event1", 21)));
+
+        awaitTrue(() -> kafkaTemplate.published.size() == 22);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("event1:" + (i + 1), kafkaTemplate.published.get(i));
+        }
+        // The failed update was spilled on shutdown, behind those spilled before
+        assertEquals("event0:0", kafkaTemplate.published.get(20));
+        assertEquals("event1:21", kafkaTemplate.published.get(21));
+    }
+
+    @Test
+    void testUpdatesLeftInMemoryAreSpilledOnShutdown() throws Exception {
+        PublishOutbox outbox = start();
+        kafkaTemplate.hold = true;
+        // Four sends in flight that never complete and one waiting for them
+        for (int i = 0; i < 5; i++) {
+            assertTrue(outbox.offer("topic", "event" + i, payload("event" + i, 0)));
+        }
+        awaitTrue(() -> outbox.getQueuedRecords() == 0);
+        for (int i = 5; i < 12; i++) {
+            assertTrue(outbox.offer("topic", "event" + i, payload("event" + i, 0)));
+        }
+        assertEquals(0, outbox.getSpilledRecords());
+        outbox.destroy();
+        started.clear();
+        assertEquals(8, outbox.getSpilledRecords());
+
+        kafkaTemplate.hold = false;
+        start();
+
+        awaitTrue(() -> kafkaTemplate.published.size() == 8);
+        for (int i = 0; i < 8; i++) {
+            assertEquals("event" + (i + 4) + ":0", kafkaTemplate.published.get(i));
+        }
+    }
+
+    @Test
+    void testSendsFailingDuringShutdownAreSpilled() throws Exception {
+        PublishOutbox outbox = start();
+        outbox.setShutdownGrace(Duration.ofSeconds(5));
+        kafkaTemplate.hold = true;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(outbox.offer("topic", "event" + i, payload("event" + i, 0)));
+        }
+        awaitTrue(() -> kafkaTemplate.held.size() == 4);
+        Thread stopping = new Thread(() -> {
+            try {
+                outbox.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+        started.clear();
+        Thread.sleep(300);
+        for (CompletableFuture<SendResult<String, byte[]>> send : kafkaTemplate.held) {
+            send.completeExceptionally(new TimeoutException("Expiring record"));
+        }
+        stopping.join();
+        assertEquals(4, outbox.getSpilledRecords());
+
+        kafkaTemplate.hold = false;
+        start();
+
+        awaitTrue(() -> kafkaTemplate.published.size() == 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("event" + i + ":0", kafkaTemplate.published.get(i));
+        }
+    }
+
+    @Test
+    void testDropsOnlyWhenSpillIsFull() throws Exception {
+        properties.getOutbox().setMaxSpillSize(DataSize.ofBytes(200));
+        PublishOutbox outbox = start();
+        kafkaTemplate.down = true;
+        outbox.offer("topic", "event0", payload("event0", 0));
+        awaitTrue(outbox::isBrokerFailing);
+
+        int accepted = 0;
+        for (int i = 1; i <= 50; i++) {
+            if (outbox.offer("topic", "event0", payload("event0", i))) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted > 0 && accepted < 50);
+        assertEquals(accepted, outbox.getSpilledRecords());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Acknowledges sends right away, leaves them pending, or fails them as a producer does when the broker cannot be reached.
+     */
+    private static class FlakyKafkaTemplate extends KafkaTemplate<String, byte[]> {
+
+        private final List<String> published = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<SendResult<String, byte[]>>> held = new CopyOnWriteArrayList<>();
+        private volatile boolean down;
+        private volatile boolean hold;
+
+        FlakyKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] data) {
+            if (down) {
+                return CompletableFuture.failedFuture(new TimeoutException("Topic " + topic + " not present in metadata"));
+            }
+            if (hold) {
+                CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+                held.add(future);
+                return future;
+            }
+            published.add(new String(data, StandardCharsets.UTF_8));
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition(topic, 0), 0, 0, 0, 0, 0);
+            return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(topic, key, data), metadata));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.restcalls.persistence;
+
+import com.example.restcalls.config.PersistenceProperties;
+import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.EventStatusListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventStatusStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final PersistenceProperties properties = new PersistenceProperties();
+    private final List<EventStatusStore> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (EventStatusStore store : started) {
+            store.destroy();
+        }
+    }
+
+    /** Starts a store the way the application context would: recovery first, then updates flow in through the listener. */
+    private EventService startService(EventStatusListener... otherListeners) throws IOException {
+        EventStatusStore[] store = new EventStatusStore[1];
+        @SuppressWarnings("unchecked")
+        ObjectProvider<EventStatusListener> listeners = mock(ObjectProvider.class);
+        when(listeners.orderedStream()).thenAnswer(invocation -> Stream.concat(Stream.of(store[0]), Stream.of(otherListeners)));
+        EventService eventService = new EventService(listeners);
+        store[0] = new EventStatusStore(eventService, properties);
+        store[0].afterPropertiesSet();
+        started.add(store[0]);
+        return eventService;
+    }
+
+    private void stopAll() throws Exception {
+        for (EventStatusStore store : started) {
+            store.destroy();
+        }
+        started.clear();
+    }
+
+    private static void writeLog(Path file, Object... idsAndStatuses) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 0; i < idsAndStatuses.length; i += 2) {
+            byte[] eventId = ((String) idsAndStatuses[i]).getBytes(StandardCharsets.UTF_8);
+            buffer.put((byte) ((Boolean) idsAndStatuses[i + 1] ? 1 : 0)).putShort((short) eventId.length).put(eventId);
+        }
+        Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    @Test
+    void testRestart_RestoresLiveEvents() throws Exception {
+        EventService before = startService();
+        before.updateEventStatus("evt1", true);
+        before.updateEventStatus("evt2", true);
+        before.updateEventStatus("evt3", true);
+        before.updateEventStatus("evt2", false);
+        stopAll();
+
+        EventService after = startService();
+
+        assertEquals(Set.of("evt1", "evt3"), after.getLiveEvents().keySet());
+        assertEquals(0, Files.size(directory.resolve(EventStatusStore.LOG_FILE)));
+    }
+
+    @Test
+    void testFullQueue_DroppedUpdatesSurviveRestart() throws Exception {
+        properties.setQueueCapacity(1);
+        EventService before = startService();
+        for (int i = 0; i < 2_000; i++) {
+            before.updateEventStatus("evt" + (i % 50), i % 3 != 0);
+        }
+        Set<String> live = Set.copyOf(before.getLiveEvents().keySet());
+        stopAll();
+
+        assertEquals(live, startService().getLiveEvents().keySet());
+    }
+
+    @Test
+    void testSnapshot_KeepsUpdateLoggedBeforeItReachedTheService() throws Exception {
+        CountDownLatch notified = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventService before = startService((eventId, live) -> {
+            notified.countDown();
+            await(release);
+        });
+        Thread updater = new Thread(() -> before.updateEventStatus("evt1", true));
+        updater.start();
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+
+        // The final snapshot is taken while the update is logged but not yet applied to the service
+        stopAll();
+        release.countDown();
+        updater.join();
+
+        assertEquals(Set.of("evt1"), startService().getLiveEvents().keySet());
+    }
+
+    @Test
+    void testRecovery_ReplaysLogOnTopOfSnapshot() throws Exception {
+        EventService before = startService();
+        before.updateEventStatus("evtA", true);
+        before.updateEventStatus("evtB", true);
+        stopAll();
+        writeLog(directory.resolve(EventStatusStore.LOG_FILE), "evtB", false, "evtC", true, "evtA", false, "evtA", true);
+
+        EventService after = startService();
+
+        assertEquals(Set.of("evtA", "evtC"), after.getLiveEvents().keySet());
+    }
+
+    @Test
+    void testRecovery_DiscardsTornRecordAndKeepsLogging() throws Exception {
+        Path log = directory.resolve(EventStatusStore.LOG_FILE);
+        writeLog(log, "evt1", true);
+        // A record cut short by a crash: header claims 10 bytes, only 3 made it to disk
+        Files.write(log, new byte[]{1, 0, 10, 'e', 'v', 't'}, StandardOpenOption.APPEND);
+
+        EventService first = startService();
+        assertEquals(Set.of("evt1"), first.getLiveEvents().keySet());
+        first.updateEventStatus("evt2", true);
+        stopAll();
+
+        assertEquals(Set.of("evt1", "evt2"), startService().getLiveEvents().keySet());
+    }
+
+    @Test
+    void testPeriodicSnapshot_EmptiesLog() throws Exception {
+        properties.setSnapshotInterval(Duration.ofMillis(50));
+        EventService eventService = startService();
+        for (int i = 0; i < 100; i++) {
+            eventService.updateEventStatus("evt" + i, true);
+        }
+
+        Path snapshot = directory.resolve(EventStatusStore.SNAPSHOT_FILE);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline
+                && !(Files.exists(snapshot) && Files.size(directory.resolve(EventStatusStore.LOG_FILE)) == 0)) {
+            Thread.sleep(20);
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        assertEquals(EventStatusStore.SNAPSHOT_MAGIC, header.getInt());
+        assertEquals(100, header.getInt());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
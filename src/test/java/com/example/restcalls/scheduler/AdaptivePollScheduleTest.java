@@ -0,0 +1,78 @@
+package com.example.restcalls.scheduler;
+
+import com.example.restcalls.config.SchedulerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptivePollScheduleTest {
+
+    private AdaptivePollSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.getAdaptive().setMinInterval(Duration.ofSeconds(1));
+        properties.getAdaptive().setMaxInterval(Duration.ofSeconds(8));
+        properties.getAdaptive().setBackoffMultiplier(2.0);
+        schedule = new AdaptivePollSchedule(properties);
+    }
+
+    @Test
+    void testNewEventsAreDueImmediately() {
+        assertEquals(List.of("event1", "event2"), schedule.takeDue(List.of("event1", "event2"), 0));
+        // Provisionally rescheduled one interval ahead
+        assertTrue(schedule.takeDue(List.of("event1", "event2"), 500).isEmpty());
+        assertEquals(List.of("event1", "event2"), schedule.takeDue(List.of("event1", "event2"), 1000));
+    }
+
+    @Test
+    void testQuietEventBacksOffUpToCeiling() {
+        schedule.takeDue(List.of("event1"), 0);
+        schedule.recordResult("event1", "0:0", 0);
+        assertEquals(1000, schedule.currentIntervalMillis("event1"));
+
+        schedule.recordResult("event1", "0:0", 1000);
+        assertEquals(2000, schedule.currentIntervalMillis("event1"));
+        schedule.recordResult("event1", "0:0", 3000);
+        schedule.recordResult("event1", "0:0", 7000);
+        schedule.recordResult("event1", "0:0", 15000);
+        assertEquals(8000, schedule.currentIntervalMillis("event1"));
+
+        assertTrue(schedule.takeDue(List.of("event1"), 22000).isEmpty());
+        assertEquals(List.of("event1"), schedule.takeDue(List.of("event1"), 23000));
+    }
+
+    @Test
+    void testScoreChangeResetsToMinInterval() {
+        schedule.takeDue(List.of("event1"), 0);
+        schedule.recordResult("event1", "0:0", 0);
+        schedule.recordResult("event1", "0:0", 1000);
+        schedule.recordResult("event1", "0:0", 3000);
+        assertEquals(4000, schedule.currentIntervalMillis("event1"));
+
+        schedule.recordResult("event1", "1:0", 7000);
+        assertEquals(1000, schedule.currentIntervalMillis("event1"));
+        assertEquals(List.of("event1"), schedule.takeDue(List.of("event1"), 8000));
+    }
+
+    @Test
+    void testFailedPollBacksOff() {
+        schedule.takeDue(List.of("event1"), 0);
+        schedule.recordResult("event1", null, 0);
+        assertEquals(2000, schedule.currentIntervalMillis("event1"));
+    }
+
+    @Test
+    void testEventsNoLongerLiveAreForgotten() {
+        schedule.takeDue(List.of("event1", "event2"), 0);
+
+        assertEquals(List.of("event2"), schedule.takeDue(List.of("event2"), 1000));
+        assertEquals(-1, schedule.currentIntervalMillis("event1"));
+        assertEquals(1000, schedule.currentIntervalMillis("event2"));
+    }
+}
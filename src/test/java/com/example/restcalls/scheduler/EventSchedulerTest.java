@@ -1,20 +1,44 @@
 package com.example.restcalls.scheduler;
 
+import com.example.restcalls.cluster.ShardOwnership;
+import com.example.restcalls.config.ClusterProperties;
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.config.SchedulerProperties;
+import com.example.restcalls.config.UpstreamProperties;
 import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.expiry.LiveEventExpiry;
+import com.example.restcalls.metrics.EventMetrics;
 import com.example.restcalls.service.EventService;
+import com.example.restcalls.service.LastPublishedScoreCache;
 import com.example.restcalls.service.MessageProducerService;
+import com.example.restcalls.stream.ScoreUpdateBroadcaster;
+import com.example.restcalls.upstream.EntityTagCache;
+import com.example.restcalls.upstream.SingleFlightScoreCache;
+import com.example.restcalls.upstream.TaggedResponse;
+import com.example.restcalls.upstream.UpstreamClient;
+import com.example.restcalls.upstream.UpstreamCancelledException;
+import com.example.restcalls.upstream.UpstreamRejectedException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -26,21 +50,68 @@ public class EventSchedulerTest {
     private EventService eventService;
 
     @Mock
-    private RestTemplate restTemplate;
+    private UpstreamClient upstreamClient;
 
     @Mock
     private MessageProducerService messageProducerService;
 
+    @Spy
+    private SchedulerProperties schedulerProperties = new SchedulerProperties();
+
+    @Mock
+    private EventFetchPool eventFetchPool;
+
+    @Mock
+    private AdaptivePollSchedule adaptivePollSchedule;
+
+    @Spy
+    private LastPublishedScoreCache lastPublishedScoreCache = new LastPublishedScoreCache(new PublisherProperties());
+
+    @Spy
+    private ShardOwnership shardOwnership = new ShardOwnership(new ClusterProperties());
+
+    @Mock
+    private EventMetrics eventMetrics;
+
+    @Mock
+    private ScoreUpdateBroadcaster scoreUpdateBroadcaster;
+
+    @Spy
+    private SingleFlightScoreCache scoreCache = new SingleFlightScoreCache(uncachedUpstreamProperties());
+
+    @Mock
+    private LiveEventExpiry liveEventExpiry;
+
+    @Spy
+    private EntityTagCache entityTagCache = new EntityTagCache(new UpstreamProperties());
+
     @InjectMocks
     private EventScheduler eventScheduler;
 
+    // Runs in these tests follow each other immediately; every one of them should reach the upstream
+    private static UpstreamProperties uncachedUpstreamProperties() {
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        return properties;
+    }
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(upstreamClient.isAvailable()).thenReturn(true);
+        // Untagged responses: conditional fetches behave like the plain fetches stubbed by the tests
+        lenient().when(upstreamClient.fetchEventIfModified(anyString(), any())).thenAnswer(invocation -> {
+            MockApiResponse response = upstreamClient.fetchEvent(invocation.getArgument(0));
+            return response != null ? new TaggedResponse(response, null) : null;
+        });
+    }
+
     @Test
     void testFetchLiveEventData_NoLiveEvents() {
         when(eventService.getLiveEvents()).thenReturn(Collections.emptyMap());
 
         eventScheduler.fetchLiveEventData();
 
-        verify(restTemplate, never()).getForObject(anyString(), any());
+        verify(upstreamClient, never()).fetchEvent(anyString());
         verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
     }
 
@@ -50,12 +121,12 @@ public class EventSchedulerTest {
         when(eventService.getLiveEvents()).thenReturn(liveEvents);
 
         MockApiResponse apiResponse = new MockApiResponse("event1", "1:0");
-        when(restTemplate.getForObject(eq("http://localhost:8080/events/mockapi/event/event1"), eq(MockApiResponse.class)))
+        when(upstreamClient.fetchEvent("event1"))
                 .thenReturn(apiResponse);
 
         eventScheduler.fetchLiveEventData();
 
-        verify(restTemplate, times(1)).getForObject("http://localhost:8080/events/mockapi/event/event1", MockApiResponse.class);
+        verify(upstreamClient, times(1)).fetchEvent("event1");
         verify(messageProducerService, times(1)).sendMessage("live_event_updates", apiResponse);
     }
 
@@ -67,17 +138,17 @@ public class EventSchedulerTest {
         when(eventService.getLiveEvents()).thenReturn(liveEvents);
 
         MockApiResponse apiResponseEvent1 = new MockApiResponse("event1", "1:0");
-        when(restTemplate.getForObject(eq("http://localhost:8080/events/mockapi/event/event1"), eq(MockApiResponse.class)))
+        when(upstreamClient.fetchEvent("event1"))
                 .thenReturn(apiResponseEvent1);
         // Note: EventService.getLiveEvents() should ideally only return truly live events.
         // This test handles the case where the scheduler's loop might re-check liveness.
 
         eventScheduler.fetchLiveEventData();
 
-        verify(restTemplate, times(1)).getForObject("http://localhost:8080/events/mockapi/event/event1", MockApiResponse.class);
+        verify(upstreamClient, times(1)).fetchEvent("event1");
         verify(messageProducerService, times(1)).sendMessage("live_event_updates", apiResponseEvent1);
         // Ensure no calls for event2
-        verify(restTemplate, never()).getForObject(eq("http://localhost:8080/events/mockapi/event/event2"), eq(MockApiResponse.class));
+        verify(upstreamClient, never()).fetchEvent("event2");
         verify(messageProducerService, never()).sendMessage(anyString(), argThat(response -> "event2".equals(response.getEventId())) );
 
     }
@@ -88,12 +159,12 @@ public class EventSchedulerTest {
         Map<String, Boolean> liveEvents = Collections.singletonMap("event2", true);
         when(eventService.getLiveEvents()).thenReturn(liveEvents);
 
-        when(restTemplate.getForObject(eq("http://localhost:8080/events/mockapi/event/event2"), eq(MockApiResponse.class)))
+        when(upstreamClient.fetchEvent("event2"))
                 .thenThrow(new RestClientException("API down"));
 
         eventScheduler.fetchLiveEventData();
 
-        verify(restTemplate, times(1)).getForObject("http://localhost:8080/events/mockapi/event/event2", MockApiResponse.class);
+        verify(upstreamClient, times(1)).fetchEvent("event2");
         verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
         // Verification of error logging would require a logging test framework
     }
@@ -103,13 +174,237 @@ public class EventSchedulerTest {
         Map<String, Boolean> liveEvents = Collections.singletonMap("event3", true);
         when(eventService.getLiveEvents()).thenReturn(liveEvents);
 
-        when(restTemplate.getForObject(eq("http://localhost:8080/events/mockapi/event/event3"), eq(MockApiResponse.class)))
+        when(upstreamClient.fetchEvent("event3"))
                 .thenReturn(null); // Simulate API returning null
 
         eventScheduler.fetchLiveEventData();
 
-        verify(restTemplate, times(1)).getForObject("http://localhost:8080/events/mockapi/event/event3", MockApiResponse.class);
+        verify(upstreamClient, times(1)).fetchEvent("event3");
         verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
         // Verification of warning logging for null response would require a logging test framework
     }
+
+    @Test
+    void testFetchLiveEventData_Concurrent_FetchesAllEventsAndIsolatesFailures() {
+        schedulerProperties.setExecutionMode(SchedulerProperties.ExecutionMode.CONCURRENT);
+        schedulerProperties.setMaxConcurrency(4);
+        EventFetchPool pool = new EventFetchPool(schedulerProperties);
+        EventScheduler concurrentScheduler = new EventScheduler(eventService, upstreamClient, messageProducerService,
+                schedulerProperties, pool, adaptivePollSchedule, lastPublishedScoreCache, shardOwnership, eventMetrics, scoreUpdateBroadcaster,
+                scoreCache, liveEventExpiry, entityTagCache);
+
+        Map<String, Boolean> liveEvents = new HashMap<>();
+        liveEvents.put("event1", true);
+        liveEvents.put("event2", true);
+        liveEvents.put("event3", true);
+        when(eventService.getLiveEvents()).thenReturn(liveEvents);
+
+        MockApiResponse response1 = new MockApiResponse("event1", "1:0");
+        MockApiResponse response3 = new MockApiResponse("event3", "2:2");
+        when(upstreamClient.fetchEvent("event1"))
+                .thenReturn(response1);
+        when(upstreamClient.fetchEvent("event2"))
+                .thenThrow(new RestClientException("API down"));
+        when(upstreamClient.fetchEvent("event3"))
+                .thenReturn(response3);
+
+        try {
+            concurrentScheduler.fetchLiveEventData();
+        } finally {
+            pool.destroy();
+        }
+
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", response1);
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", response3);
+        verify(messageProducerService, times(2)).sendMessage(anyString(), any(MockApiResponse.class));
+    }
+
+    @Test
+    void testEventFetchPool_ReportsItemsMissingTheDeadline() throws InterruptedException {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setMaxConcurrency(2);
+        EventFetchPool pool = new EventFetchPool(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try {
+            List<String> missed = pool.runAll(List.of("fast", "slow"), id -> {
+                if ("slow".equals(id)) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                }
+            }, Duration.ofMillis(200));
+
+            assertEquals(List.of("slow"), missed);
+            // The task still running at the deadline is interrupted, freeing its thread
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    void testFetchLiveEventData_Sequential_StopsAtTickDeadline() {
+        schedulerProperties.setTickDeadline(Duration.ZERO);
+        when(eventService.getLiveEvents()).thenReturn(Collections.singletonMap("event1", true));
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient, never()).fetchEvent(anyString());
+        verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
+    }
+
+    @Test
+    void testFetchLiveEventData_Adaptive_PollsOnlyDueEventsAndRecordsScores() {
+        schedulerProperties.setPollingMode(SchedulerProperties.PollingMode.ADAPTIVE);
+        Map<String, Boolean> liveEvents = new HashMap<>();
+        liveEvents.put("event1", true);
+        liveEvents.put("event2", true);
+        when(eventService.getLiveEvents()).thenReturn(liveEvents);
+        when(adaptivePollSchedule.takeDue(any(), anyLong())).thenReturn(List.of("event1"));
+
+        MockApiResponse apiResponse = new MockApiResponse("event1", "1:0");
+        when(upstreamClient.fetchEvent("event1"))
+                .thenReturn(apiResponse);
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient, never()).fetchEvent("event2");
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", apiResponse);
+        verify(adaptivePollSchedule, times(1)).recordResult(eq("event1"), eq("1:0"), anyLong());
+    }
+
+    @Test
+    void testFetchLiveEventData_UnchangedScoreIsNotRepublished() {
+        when(eventService.getLiveEvents()).thenReturn(Collections.singletonMap("event1", true));
+        when(upstreamClient.fetchEvent("event1"))
+                .thenReturn(new MockApiResponse("event1", "1:0"))
+                .thenReturn(new MockApiResponse("event1", "1:0"))
+                .thenReturn(new MockApiResponse("event1", "2:0"));
+        when(messageProducerService.sendMessage(anyString(), any(MockApiResponse.class))).thenReturn(true);
+
+        eventScheduler.fetchLiveEventData();
+        eventScheduler.fetchLiveEventData();
+        eventScheduler.fetchLiveEventData();
+
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", new MockApiResponse("event1", "1:0"));
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", new MockApiResponse("event1", "2:0"));
+        verify(messageProducerService, times(2)).sendMessage(anyString(), any(MockApiResponse.class));
+        // Every fetched score goes to expiry, which only counts new ones as activity
+        verify(liveEventExpiry, times(2)).recordScore("event1", "1:0");
+        verify(liveEventExpiry, times(1)).recordScore("event1", "2:0");
+    }
+
+    @Test
+    void testFetchLiveEventData_NotModifiedReusesLastResponse() {
+        when(eventService.getLiveEvents()).thenReturn(Collections.singletonMap("event1", true));
+        TaggedResponse tagged = new TaggedResponse(new MockApiResponse("event1", "1:0"), "\"v1\"");
+        when(upstreamClient.fetchEventIfModified(eq("event1"), any()))
+                .thenReturn(tagged)
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(messageProducerService.sendMessage(anyString(), any(MockApiResponse.class))).thenReturn(true);
+
+        eventScheduler.fetchLiveEventData();
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient).fetchEventIfModified("event1", null);
+        verify(upstreamClient).fetchEventIfModified("event1", tagged);
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", tagged.response());
+        verify(liveEventExpiry, times(2)).recordScore("event1", "1:0");
+        assertEquals(tagged, entityTagCache.get("event1"));
+    }
+
+    @Test
+    void testFetchLiveEventData_Batched_GroupsEventsPerRequest() {
+        schedulerProperties.setBatchSize(2);
+        Map<String, Boolean> liveEvents = new LinkedHashMap<>();
+        liveEvents.put("event1", true);
+        liveEvents.put("event2", true);
+        liveEvents.put("event3", true);
+        when(eventService.getLiveEvents()).thenReturn(liveEvents);
+
+        MockApiResponse response1 = new MockApiResponse("event1", "1:0");
+        MockApiResponse response3 = new MockApiResponse("event3", "0:1");
+        when(upstreamClient.fetchEvents(List.of("event1", "event2"))).thenReturn(List.of(response1));
+        when(upstreamClient.fetchEvents(List.of("event3"))).thenReturn(List.of(response3));
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient, never()).fetchEvent(anyString());
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", response1);
+        verify(messageProducerService, times(1)).sendMessage("live_event_updates", response3);
+        verify(messageProducerService, times(2)).sendMessage(anyString(), any(MockApiResponse.class));
+    }
+
+    @Test
+    void testFetchLiveEventData_Batched_FailedBatchIsIsolated() {
+        schedulerProperties.setBatchSize(1_000);
+        Map<String, Boolean> liveEvents = new HashMap<>();
+        liveEvents.put("event1", true);
+        liveEvents.put("event2", true);
+        when(eventService.getLiveEvents()).thenReturn(liveEvents);
+        when(upstreamClient.fetchEvents(any())).thenThrow(new RestClientException("API down"));
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient, times(1)).fetchEvents(any());
+        verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
+    }
+
+    @Test
+    void testFetchLiveEventData_SkipsRunWhileCircuitIsOpen() {
+        when(upstreamClient.isAvailable()).thenReturn(false);
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(eventService, never()).getLiveEvents();
+        verify(upstreamClient, never()).fetchEvent(anyString());
+    }
+
+    @Test
+    void testFetchLiveEventData_RejectedCallsAreNotCountedAsPollFailures() {
+        schedulerProperties.setPollingMode(SchedulerProperties.PollingMode.ADAPTIVE);
+        when(eventService.getLiveEvents()).thenReturn(Collections.singletonMap("event1", true));
+        when(adaptivePollSchedule.takeDue(any(), anyLong())).thenReturn(List.of("event1"));
+        when(upstreamClient.fetchEvent("event1")).thenThrow(new UpstreamRejectedException("limit reached"));
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(adaptivePollSchedule, never()).recordResult(anyString(), any(), anyLong());
+        verify(messageProducerService, never()).sendMessage(anyString(), any(MockApiResponse.class));
+    }
+
+    @Test
+    void testFetchLiveEventData_CancelledCallsAreNotCountedAsPollFailures() {
+        schedulerProperties.setPollingMode(SchedulerProperties.PollingMode.ADAPTIVE);
+        when(eventService.getLiveEvents()).thenReturn(Collections.singletonMap("event1", true));
+        when(adaptivePollSchedule.takeDue(any(), anyLong())).thenReturn(List.of("event1"));
+        when(upstreamClient.fetchEvent("event1")).thenThrow(new UpstreamCancelledException("interrupted"));
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(adaptivePollSchedule, never()).recordResult(anyString(), any(), anyLong());
+        verify(eventMetrics, never()).recordFetch(anyBoolean(), any(), anyLong());
+    }
+
+    @Test
+    void testFetchLiveEventData_ClusterMode_PollsOnlyOwnedEvents() {
+        Map<String, Boolean> liveEvents = new HashMap<>();
+        liveEvents.put("event1", true);
+        liveEvents.put("event2", true);
+        when(eventService.getLiveEvents()).thenReturn(liveEvents);
+        when(shardOwnership.owns("event1")).thenReturn(true);
+        when(shardOwnership.owns("event2")).thenReturn(false);
+        MockApiResponse apiResponse = new MockApiResponse("event1", "1:0");
+        when(upstreamClient.fetchEvent("event1")).thenReturn(apiResponse);
+
+        eventScheduler.fetchLiveEventData();
+
+        verify(upstreamClient, times(1)).fetchEvent("event1");
+        verify(upstreamClient, never()).fetchEvent("event2");
+    }
 }
@@ -1,7 +1,17 @@
 package com.example.restcalls.service;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class EventServiceTest {
 
@@ -42,4 +52,83 @@ public class EventServiceTest {
         // Check non-existent event
         assertFalse(eventService.isEventLive("event3"));
     }
+
+    @Test
+    void testLiveEventsIsReadOnlyViewWithoutNotLiveEntries() {
+        EventService eventService = new EventService();
+        Map<String, Boolean> liveEvents = eventService.getLiveEvents();
+
+        for (int i = 0; i < 10_000; i++) {
+            eventService.updateEventStatus("event" + i, true);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            eventService.updateEventStatus("event" + i, false);
+        }
+
+        // The same view is handed out on every call and reflects later updates
+        assertSame(liveEvents, eventService.getLiveEvents());
+        assertEquals(5_000, liveEvents.size());
+        assertEquals(5_000, eventService.getLiveEventCount());
+        assertFalse(liveEvents.containsKey("event0"));
+        assertTrue(liveEvents.values().stream().allMatch(Boolean.TRUE::equals));
+        assertThrows(UnsupportedOperationException.class, () -> liveEvents.put("event0", true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStatusUpdatesAreForwardedToListeners() {
+        List<String> notifications = new ArrayList<>();
+        EventStatusListener listener = (eventId, live) -> notifications.add(eventId + "=" + live);
+        ObjectProvider<EventStatusListener> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenReturn(Stream.of(listener));
+        EventService eventService = new EventService(provider);
+
+        eventService.updateEventStatus("event1", true);
+        eventService.updateEventStatus("event1", false);
+
+        assertEquals(List.of("event1=true", "event1=false"), notifications);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateEventStatuses_OnlyChangesAreAppliedAndForwarded() {
+        List<String> notifications = new ArrayList<>();
+        EventStatusListener listener = (eventId, live) -> notifications.add(eventId + "=" + live);
+        ObjectProvider<EventStatusListener> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenReturn(Stream.of(listener));
+        EventService eventService = new EventService(provider);
+        eventService.updateEventStatus("event1", true);
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        statuses.put("event1", true);
+        statuses.put("event2", true);
+        statuses.put("event3", false);
+
+        assertEquals(1, eventService.updateEventStatuses(statuses));
+        // Applying the same updates again changes nothing
+        assertEquals(0, eventService.updateEventStatuses(statuses));
+        assertEquals(1, eventService.updateEventStatuses(Map.of("event1", false)));
+
+        assertEquals(List.of("event1=true", "event2=true", "event1=false"), notifications);
+        assertEquals(Map.of("event2", true), eventService.getLiveEvents());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMarkNotLiveIf_OnlyWhileConditionHolds() {
+        List<String> notifications = new ArrayList<>();
+        EventStatusListener listener = (eventId, live) -> notifications.add(eventId + "=" + live);
+        ObjectProvider<EventStatusListener> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenReturn(Stream.of(listener));
+        EventService eventService = new EventService(provider);
+        eventService.updateEventStatus("event1", true);
+
+        assertFalse(eventService.markNotLiveIf("event1", () -> false));
+        assertTrue(eventService.isEventLive("event1"));
+        assertTrue(eventService.markNotLiveIf("event1", () -> true));
+        // Not live any more, so there is nothing to mark and the condition is not consulted
+        assertFalse(eventService.markNotLiveIf("event1", () -> fail("condition checked for an event that is not live")));
+
+        assertEquals(List.of("event1=true", "event1=false"), notifications);
+        assertFalse(eventService.isEventLive("event1"));
+    }
 }
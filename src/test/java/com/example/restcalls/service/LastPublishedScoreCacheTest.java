@@ -0,0 +1,68 @@
+package com.example.restcalls.service;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LastPublishedScoreCacheTest {
+
+    private final PublisherProperties publisherProperties = new PublisherProperties();
+    private final LastPublishedScoreCache cache = new LastPublishedScoreCache(publisherProperties);
+
+    @Test
+    void testOnlyChangedScoresArePublished() {
+        MockApiResponse first = new MockApiResponse("evt1", "1:0");
+        assertFalse(cache.isUnchanged(first, 0));
+        cache.recordPublished(first, 0);
+
+        assertTrue(cache.isUnchanged(new MockApiResponse("evt1", "1:0"), 1000));
+        assertFalse(cache.isUnchanged(new MockApiResponse("evt1", "1:1"), 1000));
+        assertFalse(cache.isUnchanged(new MockApiResponse("evt2", "1:0"), 1000));
+    }
+
+    @Test
+    void testHeartbeatLetsUnchangedScoreThrough() {
+        publisherProperties.setHeartbeatInterval(Duration.ofSeconds(30));
+        MockApiResponse update = new MockApiResponse("evt1", "1:0");
+        cache.recordPublished(update, 0);
+
+        assertTrue(cache.isUnchanged(update, 29_999));
+        assertFalse(cache.isUnchanged(update, 30_000));
+    }
+
+    @Test
+    void testEventGoingNotLiveEvictsEntry() {
+        MockApiResponse update = new MockApiResponse("evt1", "1:0");
+        cache.recordPublished(update, 0);
+
+        cache.onStatusUpdated("evt1", true);
+        assertTrue(cache.isUnchanged(update, 0));
+
+        cache.onStatusUpdated("evt1", false);
+        assertEquals(0, cache.size());
+        assertFalse(cache.isUnchanged(update, 0));
+    }
+
+    @Test
+    void testFailedPublishIsPublishedAgain() {
+        MockApiResponse update = new MockApiResponse("evt1", "1:0");
+        cache.recordPublished(update, 0);
+
+        cache.onPublishFailed("evt1");
+
+        assertFalse(cache.isUnchanged(update, 1000));
+    }
+
+    @Test
+    void testDisabledChangeOnlyPublishesEverything() {
+        publisherProperties.setChangeOnly(false);
+        MockApiResponse update = new MockApiResponse("evt1", "1:0");
+        cache.recordPublished(update, 0);
+
+        assertFalse(cache.isUnchanged(update, 0));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.restcalls.service;
+
+import com.example.restcalls.config.PublisherProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.metrics.EventMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(topics = MessageProducerServiceEmbeddedKafkaTest.TOPIC, partitions = 3)
+public class MessageProducerServiceEmbeddedKafkaTest {
+
+    static final String TOPIC = "live_event_updates";
+
+    @Test
+    void testSendMessage_PublishesKeyedRecordsInOrderPerEvent(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        MessageProducerService producerService =
+                new MessageProducerService(new ObjectMapper(), kafkaTemplate, new PublisherProperties(),
+                        new EventMetrics(new SimpleMeterRegistry()));
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("producer-test", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+
+            for (int i = 0; i < 5; i++) {
+                producerService.sendMessage(TOPIC, new MockApiResponse("evtA", i + ":0"));
+                producerService.sendMessage(TOPIC, new MockApiResponse("evtB", "0:" + i));
+            }
+            kafkaTemplate.flush();
+
+            List<ConsumerRecord<String, String>> received = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.size() < 10 && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2));
+                records.forEach(received::add);
+            }
+
+            assertEquals(10, received.size());
+            List<String> eventAValues = received.stream().filter(r -> "evtA".equals(r.key())).map(ConsumerRecord::value).toList();
+            List<String> eventBValues = received.stream().filter(r -> "evtB".equals(r.key())).map(ConsumerRecord::value).toList();
+            assertEquals(List.of(
+                    "{\"eventId\":\"evtA\",\"currentScore\":\"0:0\"}",
+                    "{\"eventId\":\"evtA\",\"currentScore\":\"1:0\"}",
+                    "{\"eventId\":\"evtA\",\"currentScore\":\"2:0\"}",
+                    "{\"eventId\":\"evtA\",\"currentScore\":\"3:0\"}",
+                    "{\"eventId\":\"evtA\",\"currentScore\":\"4:0\"}"), eventAValues);
+            assertEquals(5, eventBValues.size());
+            assertEquals(1, received.stream().filter(r -> "evtA".equals(r.key())).map(ConsumerRecord::partition).distinct().count());
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+}
@@ -1,57 +1,142 @@
 package com.example.restcalls.service;
 
+import com.example.restcalls.config.PublisherProperties;
 import com.example.restcalls.dto.MockApiResponse;
+import com.example.restcalls.metrics.EventMetrics;
+import com.example.restcalls.outbox.PublishOutbox;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.NotLeaderOrFollowerException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class MessageProducerServiceTest {
 
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private final PublisherProperties publisherProperties = new PublisherProperties();
+    private final EventMetrics eventMetrics = new EventMetrics(new SimpleMeterRegistry());
+
     @Test
     void testSendMessage_Success() throws JsonProcessingException {
         ObjectMapper realMapper = new ObjectMapper(); // Use real ObjectMapper for success case
-        MessageProducerService producerService = new MessageProducerService(realMapper);
+        MessageProducerService producerService = new MessageProducerService(realMapper, kafkaTemplate, publisherProperties, eventMetrics);
         MockApiResponse payload = new MockApiResponse("evt1", "1:0");
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(new CompletableFuture<>());
 
-        // Call the method, ensure no exception is thrown
         producerService.sendMessage("test-topic", payload);
-        // Further verification would require a logging test framework to capture SLF4J logs.
-        // For now, we're testing that it runs without error and JSON conversion works.
+
+        // Keyed by eventId so that updates of one event stay ordered on a single partition
+        verify(kafkaTemplate, times(1)).send(eq("test-topic"), eq("evt1"),
+                aryEq("{\"eventId\":\"evt1\",\"currentScore\":\"1:0\"}".getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
     void testSendMessage_NullPayload() throws JsonProcessingException {
         ObjectMapper mockMapper = mock(ObjectMapper.class);
-        MessageProducerService producerService = new MessageProducerService(mockMapper);
+        MessageProducerService producerService = new MessageProducerService(mockMapper, kafkaTemplate, publisherProperties, eventMetrics);
 
         producerService.sendMessage("test-topic", null);
 
         // Verify that ObjectMapper was not called for null payload
-        verify(mockMapper, never()).writeValueAsString(any());
-        // Further verification for logging "Attempted to send a null payload..."
+        verify(mockMapper, never()).writeValueAsBytes(any());
+        verifyNoInteractions(kafkaTemplate);
     }
 
     @Test
     void testSendMessage_JsonProcessingException() throws Exception {
         ObjectMapper mockMapper = mock(ObjectMapper.class);
-        MessageProducerService producerService = new MessageProducerService(mockMapper);
-        MockApiResponse payload = new MockApiResponse("evt1", "1:0");
+        MessageProducerService producerService = new MessageProducerService(mockMapper, kafkaTemplate, publisherProperties, eventMetrics);
+        // Non-ASCII ids are not encoded by hand but handed to the ObjectMapper
+        MockApiResponse payload = new MockApiResponse("évt1", "1:0");
 
         // Configure mock ObjectMapper to throw JsonProcessingException
-        when(mockMapper.writeValueAsString(payload)).thenThrow(new JsonProcessingException("Test Exception") {});
+        when(mockMapper.writeValueAsBytes(payload)).thenThrow(new JsonProcessingException("Test Exception") {});
 
         // Call the method and assert that it handles the exception gracefully
         // (i.e., logs an error and does not throw the exception upwards)
         producerService.sendMessage("test-topic", payload);
 
-        // Verify that writeValueAsString was called
-        verify(mockMapper, times(1)).writeValueAsString(payload);
-        // Further verification would be to check if an error was logged.
-        // This would typically involve a custom Logback appender or a library.
+        // Verify that writeValueAsBytes was called
+        verify(mockMapper, times(1)).writeValueAsBytes(payload);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void testSendMessage_DropsWhenTooManyInFlight() {
+        publisherProperties.setMaxInFlight(1);
+        MessageProducerService producerService = new MessageProducerService(new ObjectMapper(), kafkaTemplate, publisherProperties, eventMetrics);
+        CompletableFuture<SendResult<String, byte[]>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(pending);
+
+        producerService.sendMessage("test-topic", new MockApiResponse("evt1", "1:0"));
+        producerService.sendMessage("test-topic", new MockApiResponse("evt2", "0:0"));
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any(byte[].class));
+
+        // Once the first send is acknowledged the permit is released again
+        pending.complete(null);
+        producerService.sendMessage("test-topic", new MockApiResponse("evt2", "0:0"));
+        verify(kafkaTemplate, times(1)).send(eq("test-topic"), eq("evt2"), any(byte[].class));
+    }
+
+    @Test
+    void testSendMessage_DoesNotResendFailedUpdates() {
+        publisherProperties.setMaxInFlight(1);
+        MessageProducerService producerService = new MessageProducerService(new ObjectMapper(), kafkaTemplate, publisherProperties, eventMetrics);
+        KafkaProducerException failure = new KafkaProducerException(null, "send failed", new NotLeaderOrFollowerException("moved"));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(failure))
+                .thenReturn(new CompletableFuture<>());
+
+        producerService.sendMessage("test-topic", new MockApiResponse("evt1", "1:0"));
+        // A resend could land behind this newer update of the same event
+        assertTrue(producerService.sendMessage("test-topic", new MockApiResponse("evt1", "2:0")));
+
+        verify(kafkaTemplate, after(200).times(2)).send(eq("test-topic"), eq("evt1"), any(byte[].class));
+    }
+
+    @Test
+    void testSendMessage_NotifiesFailureListeners() {
+        PublishFailureListener listener = mock(PublishFailureListener.class);
+        MessageProducerService producerService = new MessageProducerService(new ObjectMapper(), kafkaTemplate,
+                publisherProperties, eventMetrics, null, List.of(listener));
+        CompletableFuture<SendResult<String, byte[]>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(pending);
+
+        producerService.sendMessage("test-topic", new MockApiResponse("evt1", "1:0"));
+        verifyNoInteractions(listener);
+        pending.completeExceptionally(new KafkaProducerException(null, "send failed", new RuntimeException("rejected")));
+
+        verify(listener).onPublishFailed("evt1");
+    }
+
+    @Test
+    void testSendMessage_HandsUpdateToOutboxWhenEnabled() {
+        PublishOutbox outbox = mock(PublishOutbox.class);
+        when(outbox.offer(anyString(), anyString(), any(byte[].class))).thenReturn(true);
+        MessageProducerService producerService = new MessageProducerService(new ObjectMapper(), kafkaTemplate,
+                publisherProperties, eventMetrics, outbox, List.of());
+
+        assertTrue(producerService.sendMessage("test-topic", new MockApiResponse("evt1", "1:0")));
+
+        verify(outbox).offer(eq("test-topic"), eq("evt1"),
+                aryEq("{\"eventId\":\"evt1\",\"currentScore\":\"1:0\"}".getBytes(StandardCharsets.UTF_8)));
+        verifyNoInteractions(kafkaTemplate);
     }
 }
@@ -0,0 +1,51 @@
+package com.example.restcalls.service;
+
+import com.example.restcalls.dto.MockApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreUpdateEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScoreUpdateEncoder encoder = new ScoreUpdateEncoder(objectMapper);
+
+    @Test
+    void testEncode_SameBytesAsObjectMapper() throws Exception {
+        MockApiResponse[] updates = {
+                new MockApiResponse("evt1", "1:0"),
+                new MockApiResponse("mockEventSTARTUP001", "12:3"),
+                new MockApiResponse("evt1", null),
+                new MockApiResponse(null, "0:0"),
+                new MockApiResponse("quote\"and\\backslash", "1:1"),
+                new MockApiResponse("tab\there", "1:1"),
+                new MockApiResponse("évènement", "2:2"),
+        };
+        for (MockApiResponse update : updates) {
+            assertArrayEquals(objectMapper.writeValueAsBytes(update), encoder.encode(update), update.toString());
+        }
+    }
+
+    @Test
+    void testEncode_AllocatesOnlyTheMessage() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MockApiResponse update = new MockApiResponse("mockEventSTARTUP001", "2:1");
+        int messageSize = encoder.encode(update).length;
+        for (int i = 0; i < 20_000; i++) {
+            encoder.encode(update);
+        }
+
+        int iterations = 10_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            encoder.encode(update);
+        }
+        long perUpdate = (threads.getCurrentThreadAllocatedBytes() - before) / iterations;
+
+        // The message array itself, plus its object header and alignment
+        assertTrue(perUpdate <= messageSize + 24, "allocated " + perUpdate + " bytes per update");
+    }
+}
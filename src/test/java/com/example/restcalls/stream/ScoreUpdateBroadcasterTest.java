@@ -0,0 +1,169 @@
+package com.example.restcalls.stream;
+
+import com.example.restcalls.config.StreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreUpdateBroadcasterTest {
+
+    private StreamProperties properties;
+    private ScoreUpdateBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StreamProperties();
+        properties.setMaxSubscribers(2);
+        properties.setDispatcherThreads(2);
+        broadcaster = new ScoreUpdateBroadcaster(properties, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void testDeliversOnlySubscribedEvents() throws Exception {
+        RecordingEmitter event1 = new RecordingEmitter();
+        RecordingEmitter all = new RecordingEmitter();
+        broadcaster.subscribe(List.of("event1"), event1);
+        broadcaster.subscribe(List.of(), all);
+
+        broadcaster.publish(new MockApiResponse("event1", "1:0"));
+        broadcaster.publish(new MockApiResponse("event2", "0:1"));
+
+        all.awaitUpdates(2);
+        event1.awaitUpdates(1);
+        assertEquals(List.of("{\"eventId\":\"event1\",\"currentScore\":\"1:0\"}"), event1.updates);
+        assertEquals(List.of("{\"eventId\":\"event1\",\"currentScore\":\"1:0\"}",
+                "{\"eventId\":\"event2\",\"currentScore\":\"0:1\"}"), all.updates);
+    }
+
+    @Test
+    void testSlowSubscriberGetsLatestScoreWithoutBlockingPublisher() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        broadcaster.subscribe(List.of("event1"), slow);
+
+        broadcaster.publish(new MockApiResponse("event1", "0:0"));
+        slow.awaitSendStarted();
+        long start = System.nanoTime();
+        for (int home = 1; home <= 5; home++) {
+            broadcaster.publish(new MockApiResponse("event1", home + ":0"));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        release.countDown();
+
+        slow.awaitUpdates(2);
+        assertEquals(List.of("{\"eventId\":\"event1\",\"currentScore\":\"0:0\"}",
+                "{\"eventId\":\"event1\",\"currentScore\":\"5:0\"}"), slow.updates);
+    }
+
+    @Test
+    void testRefusesSubscribersBeyondLimit() {
+        assertTrue(broadcaster.subscribe(List.of("event1"), new RecordingEmitter()).isPresent());
+        assertTrue(broadcaster.subscribe(List.of(), new RecordingEmitter()).isPresent());
+        assertTrue(broadcaster.subscribe(List.of("event2"), new RecordingEmitter()).isEmpty());
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testFailedSubscriberIsRemoved() throws Exception {
+        RecordingEmitter broken = new RecordingEmitter();
+        broken.failing = true;
+        broadcaster.subscribe(List.of("event1"), broken);
+
+        broadcaster.publish(new MockApiResponse("event1", "1:0"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testStalledSubscriberIsDroppedAfterWriteTimeout() throws Exception {
+        broadcaster.destroy();
+        properties.setWriteTimeout(Duration.ofMillis(50));
+        properties.setHeartbeatInterval(Duration.ofMillis(50));
+        broadcaster = new ScoreUpdateBroadcaster(properties, new ObjectMapper());
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        broadcaster.subscribe(List.of("event1"), stalled);
+
+        broadcaster.publish(new MockApiResponse("event1", "1:0"));
+        stalled.awaitSendStarted();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.getSubscriberCount());
+        release.countDown();
+    }
+
+    /**
+     * Emitter that is not attached to a response and records the JSON payloads sent to it.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> updates = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private volatile boolean failing;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            sendStarted.countDown();
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (DataWithMediaType item : items) {
+                if (MediaType.APPLICATION_JSON.equals(item.getMediaType())) {
+                    updates.add((String) item.getData());
+                }
+            }
+        }
+
+        void awaitSendStarted() throws InterruptedException {
+            assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        void awaitUpdates(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (updates.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, updates.size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        UpstreamProperties.Limiter settings = new UpstreamProperties.Limiter();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(1);
+        settings.setMaxLimit(10);
+        settings.setLatencyThreshold(Duration.ofSeconds(1));
+        settings.setBackoffRatio(0.5);
+        return new AdaptiveConcurrencyLimiter(settings);
+    }
+
+    @Test
+    void testRejectsCallsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.onIgnored();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testFastCallsGrowLimitAdditively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        // Two successes at limit 2 add about one slot
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(3, limiter.getLimit());
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void testSlowOrFailedCallsShrinkLimitMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.tryAcquire();
+        limiter.onSuccess(SLOW);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped();
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        UpstreamProperties.CircuitBreaker settings = new UpstreamProperties.CircuitBreaker();
+        settings.setFailureThreshold(3);
+        settings.setOpenDuration(Duration.ofSeconds(10));
+        settings.setHalfOpenProbes(1);
+        circuitBreaker = new CircuitBreaker(settings, clock::get);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onFailure();
+        }
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        fail(2);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess();
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.isCallPermitted());
+    }
+
+    @Test
+    void testHalfOpenProbeSuccessCloses() {
+        fail(3);
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertTrue(circuitBreaker.isCallPermitted());
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        // Only one probe at a time
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(1L, circuitBreaker.getTransitionCounts().get(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void testHalfOpenProbeFailureReopens() {
+        fail(3);
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(2L, circuitBreaker.getTransitionCounts().get(CircuitBreaker.State.OPEN));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testReleasedProbePermissionCanBeReused() {
+        fail(3);
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.releasePermission();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightScoreCacheTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static SingleFlightScoreCache cache(Duration ttl) {
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.getCache().setTtl(ttl);
+        return new SingleFlightScoreCache(properties);
+    }
+
+    @Test
+    void testConcurrentFetchesShareOneCall() throws Exception {
+        SingleFlightScoreCache cache = cache(Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<MockApiResponse> first = executor.submit(() -> cache.fetchEvent("event1", id -> {
+            calls.incrementAndGet();
+            fetchStarted.countDown();
+            await(release);
+            return new MockApiResponse(id, "1:0");
+        }));
+        assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+        List<Future<MockApiResponse>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(executor.submit(() -> cache.fetchEvent("event1", id -> {
+                calls.incrementAndGet();
+                return new MockApiResponse(id, "9:9");
+            })));
+        }
+        while (cache.getCoalesced() < 4) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals("1:0", first.get(5, TimeUnit.SECONDS).getCurrentScore());
+        for (Future<MockApiResponse> waiter : waiters) {
+            assertEquals("1:0", waiter.get(5, TimeUnit.SECONDS).getCurrentScore());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(4, cache.getCoalesced());
+
+        // Nothing is kept once the call is over when caching is disabled
+        assertEquals("2:0", cache.fetchEvent("event1", id -> new MockApiResponse(id, "2:0")).getCurrentScore());
+    }
+
+    @Test
+    void testFailureIsSharedAndNotCached() throws Exception {
+        SingleFlightScoreCache cache = cache(Duration.ofMinutes(1));
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<MockApiResponse> first = executor.submit(() -> cache.fetchEvent("event1", id -> {
+            fetchStarted.countDown();
+            await(release);
+            throw new ResourceAccessException("upstream down");
+        }));
+        assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+        Future<MockApiResponse> waiter = executor.submit(() -> cache.fetchEvent("event1", id -> new MockApiResponse(id, "9:9")));
+        while (cache.getCoalesced() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ResourceAccessException.class, failure.getCause());
+        assertInstanceOf(ResourceAccessException.class, assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals("1:0", cache.fetchEvent("event1", id -> new MockApiResponse(id, "1:0")).getCurrentScore());
+    }
+
+    @Test
+    void testErrorInBatchFetchReleasesJoinedCallers() throws Exception {
+        SingleFlightScoreCache cache = cache(Duration.ZERO);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<MockApiResponse>> batch = executor.submit(() -> cache.fetchEvents(List.of("event1", "event2"), ids -> {
+            fetchStarted.countDown();
+            await(release);
+            throw new StackOverflowError();
+        }));
+        assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+        Future<MockApiResponse> waiter = executor.submit(() -> cache.fetchEvent("event2", id -> new MockApiResponse(id, "9:9")));
+        while (cache.getCoalesced() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> batch.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void testServesCachedScoreWithinTtl() {
+        SingleFlightScoreCache cache = cache(Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.fetchEvent("event1", id -> {
+            calls.incrementAndGet();
+            return new MockApiResponse(id, "1:0");
+        });
+        MockApiResponse second = cache.fetchEvent("event1", id -> {
+            calls.incrementAndGet();
+            return new MockApiResponse(id, "2:0");
+        });
+        // Empty responses are not cached
+        assertNull(cache.fetchEvent("event2", id -> null));
+        assertEquals("3:0", cache.fetchEvent("event2", id -> new MockApiResponse(id, "3:0")).getCurrentScore());
+
+        assertEquals("1:0", second.getCurrentScore());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void testBatchFetchesOnlyUncachedEvents() {
+        SingleFlightScoreCache cache = cache(Duration.ofMinutes(1));
+        cache.fetchEvent("event2", id -> new MockApiResponse(id, "2:2"));
+        List<List<String>> requested = new ArrayList<>();
+
+        List<MockApiResponse> responses = cache.fetchEvents(List.of("event1", "event2", "event3"), ids -> {
+            requested.add(ids);
+            return List.of(new MockApiResponse("event3", "3:3"), new MockApiResponse("event1", "1:1"));
+        });
+
+        assertEquals(List.of(List.of("event1", "event3")), requested);
+        assertEquals(List.of("event1", "event2", "event3"), responses.stream().map(MockApiResponse::getEventId).toList());
+        assertEquals("1:1", cache.fetchEvent("event1", id -> null).getCurrentScore());
+    }
+
+    @Test
+    void testReportsLookupsAsMetrics() {
+        SingleFlightScoreCache cache = cache(Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.fetchEvent("event1", id -> new MockApiResponse(id, "1:0"));
+        cache.fetchEvent("event1", id -> null);
+
+        assertEquals(1, registry.get("events.upstream.cache.lookups").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("events.upstream.cache.lookups").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("events.upstream.cache.size").gauge().value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
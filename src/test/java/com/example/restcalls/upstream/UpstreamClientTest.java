@@ -0,0 +1,229 @@
+package com.example.restcalls.upstream;
+
+import com.example.restcalls.config.UpstreamProperties;
+import com.example.restcalls.dto.MockApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamClientTest {
+
+    private HttpServer server;
+    private UpstreamClient client;
+    private final Set<Object> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/mockapi/event/", this::handle);
+        server.createContext("/mockapi/events", this::handleBatch);
+        server.start();
+
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/mockapi");
+        properties.setRequestTimeout(Duration.ofMillis(300));
+        client = new UpstreamClient(properties, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        String eventId = exchange.getRequestURI().getPath().substring("/mockapi/event/".length());
+        if (eventId.startsWith("slow")) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (eventId.startsWith("missing")) {
+            exchange.sendResponseHeaders(404, -1);
+        } else if (eventId.startsWith("broken")) {
+            exchange.sendResponseHeaders(503, -1);
+        } else if (eventId.startsWith("empty")) {
+            exchange.sendResponseHeaders(200, -1);
+        } else if (eventId.startsWith("tagged")
+                && "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            if (eventId.startsWith("tagged")) {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            }
+            byte[] body = ("{\"eventId\":\"" + eventId + "\",\"currentScore\":\"2:1\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            String eventId = param.substring("ids=".length());
+            if (!eventId.startsWith("missing")) {
+                body.append(body.length() > 1 ? "," : "").append("{\"eventId\":\"").append(eventId).append("\",\"currentScore\":\"0:3\"}");
+            }
+        }
+        byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Test
+    void testFetchEvent_Success() {
+        MockApiResponse response = client.fetchEvent("event1");
+
+        assertEquals(new MockApiResponse("event1", "2:1"), response);
+    }
+
+    @Test
+    void testFetchEvent_ReusesConnections() {
+        for (int i = 0; i < 20; i++) {
+            client.fetchEvent("event" + i);
+        }
+
+        assertEquals(1, connections.size());
+    }
+
+    @Test
+    void testFetchEventIfModified_ReturnsPreviousOnNotModified() {
+        TaggedResponse first = client.fetchEventIfModified("tagged1", null);
+        assertEquals(new TaggedResponse(new MockApiResponse("tagged1", "2:1"), "\"v1\""), first);
+
+        assertSame(first, client.fetchEventIfModified("tagged1", first));
+
+        TaggedResponse stale = new TaggedResponse(new MockApiResponse("tagged1", "0:0"), "\"v0\"");
+        assertEquals(first, client.fetchEventIfModified("tagged1", stale));
+        assertEquals(new TaggedResponse(new MockApiResponse("event1", "2:1"), null), client.fetchEventIfModified("event1", null));
+    }
+
+    @Test
+    void testFetchEvent_EmptyBodyIsNull() {
+        assertNull(client.fetchEvent("empty1"));
+    }
+
+    @Test
+    void testFetchEvent_ErrorStatus() {
+        RestClientResponseException e = assertThrows(RestClientResponseException.class, () -> client.fetchEvent("missing1"));
+        assertEquals(404, e.getStatusCode().value());
+    }
+
+    @Test
+    void testFetchEvent_TimesOut() {
+        long start = System.nanoTime();
+
+        assertThrows(ResourceAccessException.class, () -> client.fetchEvent("slow1"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 900);
+    }
+
+    @Test
+    void testFetchEvent_InterruptedCallerCancelsRequest() throws Exception {
+        Throwable[] failure = new Throwable[1];
+        Thread caller = new Thread(() -> {
+            try {
+                client.fetchEvent("slow1");
+            } catch (RuntimeException e) {
+                failure[0] = e;
+            }
+        });
+        caller.start();
+        while (client.getConcurrencyLimiter().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        caller.interrupt();
+        caller.join(5_000);
+
+        assertInstanceOf(UpstreamCancelledException.class, failure[0]);
+        // The request was aborted and counts neither as a failure nor against the limit
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (client.getConcurrencyLimiter().getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+        assertEquals(0, client.getCircuitBreaker().getConsecutiveFailures());
+    }
+
+    @Test
+    void testFetchEventAsync_CompletesWithoutBlockingCaller() throws Exception {
+        var slow = client.fetchEventAsync("slow1");
+        var fast = client.fetchEventAsync("event2");
+
+        assertEquals("event2", fast.get().getEventId());
+        ExecutionException e = assertThrows(ExecutionException.class, slow::get);
+        assertInstanceOf(ResourceAccessException.class, e.getCause());
+    }
+
+    @Test
+    void testFetchEvents_OneRoundTripForSeveralEvents() {
+        List<MockApiResponse> responses = client.fetchEvents(List.of("event1", "missing1", "event2"));
+
+        assertEquals(List.of(new MockApiResponse("event1", "0:3"), new MockApiResponse("event2", "0:3")), responses);
+    }
+
+    @Test
+    void testFetchEvent_CircuitOpensAfterRepeatedServerErrors() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RestClientResponseException.class, () -> client.fetchEvent("broken1"));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+        assertFalse(client.isAvailable());
+        assertThrows(UpstreamRejectedException.class, () -> client.fetchEvent("event1"));
+    }
+
+    @Test
+    void testReportsCircuitAndLimiterAsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        client.bindTo(registry);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RestClientResponseException.class, () -> client.fetchEvent("broken1"));
+        }
+
+        assertEquals(1, registry.get("events.upstream.circuit.state").tag("state", "open").gauge().value());
+        assertEquals(0, registry.get("events.upstream.circuit.state").tag("state", "closed").gauge().value());
+        assertEquals(1, registry.get("events.upstream.circuit.transitions").tag("state", "open").functionCounter().count());
+        assertEquals(client.getConcurrencyLimiter().getLimit(), registry.get("events.upstream.limit").gauge().value());
+        assertEquals(0, registry.get("events.upstream.in.flight").gauge().value());
+    }
+
+    @Test
+    void testFetchEvent_ClientErrorsDoNotOpenCircuit() {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RestClientResponseException.class, () -> client.fetchEvent("missing1"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+        assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+    }
+
+    @Test
+    void testEventUrl_EncodesEventId() {
+        assertTrue(client.eventUrl("a b/c").toString().endsWith("/mockapi/event/a%20b%2Fc"));
+    }
+}